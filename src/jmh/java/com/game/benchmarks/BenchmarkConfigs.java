@@ -0,0 +1,168 @@
+package com.game.benchmarks;
+
+import com.game.models.GameConfig;
+import com.game.models.Symbol;
+import com.game.models.WinCombination;
+import com.game.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the configurations the benchmarks run against.
+ */
+final class BenchmarkConfigs {
+    static final String SHIPPED = "shipped";
+    static final String GENERATED = "generated";
+    static final String PAYLINES = "paylines";
+
+    private static final String SHIPPED_CONFIG = System.getProperty("benchmark.config", "config.json");
+    private static final int GENERATED_STANDARD_SYMBOLS = 16;
+
+    private BenchmarkConfigs() {
+    }
+
+    /**
+     * This method returns the named configuration resized to a square board.
+     *
+     * @param name One of {@value #SHIPPED}, {@value #GENERATED} or {@value #PAYLINES}.
+     * @param size The number of rows and columns of the board.
+     * @return The configuration.
+     */
+    static GameConfig load(String name, int size) throws IOException {
+        return switch (name) {
+            case SHIPPED -> shipped(size);
+            case GENERATED -> generated(size);
+            case PAYLINES -> paylines(size);
+            default -> throw new IllegalArgumentException("Unknown benchmark config: " + name);
+        };
+    }
+
+    /**
+     * This method loads the shipped {@code config.json} on a board of the given size. Cells the file gives
+     * no weights for fall back to its first entry, as they do in the game.
+     */
+    private static GameConfig shipped(int size) throws IOException {
+        GameConfig config = JsonUtils.loadConfig(SHIPPED_CONFIG);
+        config.setRows(size);
+        config.setColumns(size);
+        return config;
+    }
+
+    /**
+     * This method generates a large configuration: {@value #GENERATED_STANDARD_SYMBOLS} standard symbols with
+     * their own weights in every cell, a {@code same_symbols} combination for every count from 3 to the whole
+     * board, every row, column and both diagonals as linear areas, and the bonus symbols of the shipped game.
+     */
+    private static GameConfig generated(int size) {
+        // Step 1: Standard symbols with decreasing multipliers, and the bonus symbols
+        Map<String, Symbol> symbols = new LinkedHashMap<>();
+        for (int i = 0; i < GENERATED_STANDARD_SYMBOLS; i++) {
+            symbols.put(standardName(i), symbol("standard", 10.0 / (i + 1), null, null));
+        }
+        symbols.put("10x", symbol("bonus", 10.0, "multiply_reward", null));
+        symbols.put("5x", symbol("bonus", 5.0, "multiply_reward", null));
+        symbols.put("+1000", symbol("bonus", null, "extra_bonus", 1000.0));
+        symbols.put("+500", symbol("bonus", null, "extra_bonus", 500.0));
+        symbols.put("MISS", symbol("bonus", null, "miss", null));
+
+        // Step 2: Different weights in every cell
+        GameConfig.StandardSymbolProbability[] cells = new GameConfig.StandardSymbolProbability[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Map<String, Integer> weights = new LinkedHashMap<>();
+                for (int i = 0; i < GENERATED_STANDARD_SYMBOLS; i++) {
+                    weights.put(standardName(i), 1 + (i + row * 3 + col * 5) % 7);
+                }
+                GameConfig.StandardSymbolProbability cell = new GameConfig.StandardSymbolProbability();
+                cell.setRow(row);
+                cell.setColumn(col);
+                cell.setSymbols(weights);
+                cells[row * size + col] = cell;
+            }
+        }
+        Map<String, Integer> bonusWeights = new LinkedHashMap<>();
+        bonusWeights.put("10x", 1);
+        bonusWeights.put("5x", 2);
+        bonusWeights.put("+1000", 3);
+        bonusWeights.put("+500", 4);
+        bonusWeights.put("MISS", 5);
+        GameConfig.BonusSymbolProbability bonus = new GameConfig.BonusSymbolProbability();
+        bonus.setSymbols(bonusWeights);
+        GameConfig.Probabilities probabilities = new GameConfig.Probabilities();
+        probabilities.setStandardSymbols(cells);
+        probabilities.setBonusSymbols(bonus);
+
+        // Step 3: Count combinations up to the whole board, and every line of the board
+        Map<String, WinCombination> combinations = new LinkedHashMap<>();
+        for (int count = 3; count <= size * size; count++) {
+            WinCombination combination = combination("same_symbols", "same_symbols", count - 2.0);
+            combination.setCount(count);
+            combinations.put("same_symbol_" + count + "_times", combination);
+        }
+        String[][] horizontal = new String[size][size];
+        String[][] vertical = new String[size][size];
+        String[][] ltr = new String[1][size];
+        String[][] rtl = new String[1][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                horizontal[i][j] = i + ":" + j;
+                vertical[i][j] = j + ":" + i;
+            }
+            ltr[0][i] = i + ":" + i;
+            rtl[0][i] = i + ":" + (size - 1 - i);
+        }
+        combinations.put("same_symbols_horizontally", linear("horizontally_linear_symbols", 2.0, horizontal));
+        combinations.put("same_symbols_vertically", linear("vertically_linear_symbols", 2.0, vertical));
+        combinations.put("same_symbols_diagonally_left_to_right", linear("ltr_diagonally_linear_symbols", 5.0, ltr));
+        combinations.put("same_symbols_diagonally_right_to_left", linear("rtl_diagonally_linear_symbols", 5.0, rtl));
+
+        GameConfig config = new GameConfig();
+        config.setRows(size);
+        config.setColumns(size);
+        config.setSymbols(symbols);
+        config.setProbabilities(probabilities);
+        config.setWinCombinations(combinations);
+        return config;
+    }
+
+    /**
+     * This method adds the lines of every generated family, as one more linear combination, to the
+     * {@link #generated(int) generated} configuration.
+     */
+    private static GameConfig paylines(int size) {
+        GameConfig config = generated(size);
+        WinCombination lines = combination("linear_symbols", "paylines", 1.5);
+        lines.setGenerate(new String[] {"rows", "columns", "diagonals", "zigzags"});
+        config.getWinCombinations().put("paylines", lines);
+        return config;
+    }
+
+    private static String standardName(int index) {
+        return "S" + index;
+    }
+
+    private static Symbol symbol(String type, Double rewardMultiplier, String impact, Double extra) {
+        Symbol symbol = new Symbol();
+        symbol.setType(type);
+        symbol.setRewardMultiplier(rewardMultiplier);
+        symbol.setImpact(impact);
+        symbol.setExtra(extra);
+        return symbol;
+    }
+
+    private static WinCombination combination(String when, String group, double rewardMultiplier) {
+        WinCombination combination = new WinCombination();
+        combination.setWhen(when);
+        combination.setGroup(group);
+        combination.setRewardMultiplier(rewardMultiplier);
+        return combination;
+    }
+
+    private static WinCombination linear(String group, double rewardMultiplier, String[][] areas) {
+        WinCombination combination = combination("linear_symbols", group, rewardMultiplier);
+        combination.setCoveredAreas(areas);
+        return combination;
+    }
+}
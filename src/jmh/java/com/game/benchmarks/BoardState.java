@@ -0,0 +1,67 @@
+package com.game.benchmarks;
+
+import com.game.models.GameConfig;
+import com.game.services.GameEngine;
+import com.game.services.MatrixGenerator;
+import com.game.services.ProbabilityService;
+import com.game.services.RewardCalculator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The game services of one configuration and board size, with a pool of boards generated up front so
+ * that the evaluation benchmarks do not measure generation as well.
+ */
+@State(Scope.Thread)
+public class BoardState {
+    static final double BETTING_AMOUNT = 100;
+    private static final int POOL_SIZE = 1024;
+
+    @Param({"3", "4", "5", "6", "7", "8"})
+    public int size;
+
+    @Param({BenchmarkConfigs.SHIPPED, BenchmarkConfigs.GENERATED, BenchmarkConfigs.PAYLINES})
+    public String config;
+
+    GameConfig gameConfig;
+    ProbabilityService probabilityService;
+    MatrixGenerator matrixGenerator;
+    RewardCalculator rewardCalculator;
+    GameEngine engine;
+
+    String[][][] matrices;
+    List<Map<String, List<String>>> winningCombinations;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        gameConfig = BenchmarkConfigs.load(config, size);
+        probabilityService = new ProbabilityService(gameConfig);
+        matrixGenerator = new MatrixGenerator(gameConfig);
+        rewardCalculator = new RewardCalculator(gameConfig);
+        engine = new GameEngine(gameConfig);
+
+        matrices = new String[POOL_SIZE][][];
+        winningCombinations = new ArrayList<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            matrices[i] = matrixGenerator.generateMatrix();
+            winningCombinations.add(rewardCalculator.checkWinningCombinations(matrices[i]));
+        }
+    }
+
+    /**
+     * This method returns the index of the next pooled board, cycling through the pool.
+     */
+    int next() {
+        next = (next + 1) & (POOL_SIZE - 1);
+        return next;
+    }
+}
@@ -0,0 +1,30 @@
+package com.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking pooled boards against the win combinations and pricing them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EvaluationBenchmark {
+
+    @Benchmark
+    public Map<String, List<String>> checkWinningCombinations(BoardState state) {
+        return state.rewardCalculator.checkWinningCombinations(state.matrices[state.next()]);
+    }
+
+    @Benchmark
+    public double calculateReward(BoardState state) {
+        int i = state.next();
+        return state.rewardCalculator.calculateReward(state.matrices[i], BoardState.BETTING_AMOUNT,
+                state.winningCombinations.get(i));
+    }
+}
@@ -0,0 +1,79 @@
+package com.game.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.game.models.GameResult;
+import com.game.utils.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures whole spins and the serialization of their results.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GameBenchmark {
+    private static final int POOL_SIZE = 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+
+    /**
+     * Results played up front, so that serializing them does not measure the spin as well.
+     */
+    @State(Scope.Thread)
+    public static class ResultPool {
+        GameResult[] results;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(BoardState state) {
+            results = new GameResult[POOL_SIZE];
+            for (int i = 0; i < POOL_SIZE; i++) {
+                results[i] = state.engine.play(BoardState.BETTING_AMOUNT);
+            }
+        }
+
+        GameResult next() {
+            next = (next + 1) & (POOL_SIZE - 1);
+            return results[next];
+        }
+    }
+
+    @Benchmark
+    public GameResult play(BoardState state) {
+        return state.engine.play(BoardState.BETTING_AMOUNT);
+    }
+
+    @Benchmark
+    public String toJson(ResultPool pool) throws IOException {
+        return JsonUtils.toJson(pool.next());
+    }
+
+    @Benchmark
+    public String playAndToJson(BoardState state) throws IOException {
+        return JsonUtils.toJson(state.engine.play(BoardState.BETTING_AMOUNT));
+    }
+
+    @Benchmark
+    public byte[] toJsonBytes(ResultPool pool) throws IOException {
+        return JsonUtils.toJsonBytes(pool.next());
+    }
+
+    /**
+     * The reflective object mapper the results used to go through, as a baseline. Results are played
+     * fresh, as the mapper keeps the matrix and map it builds in the result.
+     */
+    @Benchmark
+    public String playAndToJsonWithMapper(BoardState state) throws IOException {
+        return MAPPER.writeValueAsString(state.engine.play(BoardState.BETTING_AMOUNT));
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures drawing boards and single symbols.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenerationBenchmark {
+
+    @Benchmark
+    public String[][] generateMatrix(BoardState state) {
+        return state.matrixGenerator.generateMatrix();
+    }
+
+    @Benchmark
+    public byte[] generateBoard(BoardState state) {
+        return state.matrixGenerator.generateBoard();
+    }
+
+    @Benchmark
+    public int sampleStandardSymbol(BoardState state) {
+        return state.probabilityService.sampleStandardSymbol(state.next() % (state.size * state.size));
+    }
+
+    @Benchmark
+    public int sampleBonusSymbol(BoardState state) {
+        return state.probabilityService.sampleBonusSymbol();
+    }
+}
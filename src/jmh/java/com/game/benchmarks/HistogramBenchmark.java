@@ -0,0 +1,72 @@
+package com.game.benchmarks;
+
+import com.game.services.SymbolCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares counting the symbols of a board cell by cell with counting them with the Vector API, on
+ * random boards of the given number of cells and symbols.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class HistogramBenchmark {
+    private static final int POOL_SIZE = 1024;
+
+    @Param({"9", "36", "64", "144", "400"})
+    public int cells;
+
+    @Param({"12", "21", "64"})
+    public int symbols;
+
+    private byte[][] boards;
+    private SymbolCounter vector;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        vector = SymbolCounter.vector();
+        if (vector == null) {
+            throw new IllegalStateException("jdk.incubator.vector is not enabled");
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        boards = new byte[POOL_SIZE][cells];
+        for (byte[] board : boards) {
+            for (int i = 0; i < cells; i++) {
+                board[i] = (byte) random.nextInt(symbols);
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] scalar() {
+        int[] histogram = new int[symbols];
+        SymbolCounter.scalar().count(nextBoard(), histogram);
+        return histogram;
+    }
+
+    @Benchmark
+    public int[] vector() {
+        int[] histogram = new int[symbols];
+        vector.count(nextBoard(), histogram);
+        return histogram;
+    }
+
+    private byte[] nextBoard() {
+        next = (next + 1) & (POOL_SIZE - 1);
+        return boards[next];
+    }
+}
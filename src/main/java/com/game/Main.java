@@ -1,43 +1,484 @@
 package com.game;
 
+import com.game.journal.JournalReader;
+import com.game.journal.JournalReplayer;
+import com.game.journal.SpinJournal;
+import com.game.journal.SpinJournals;
+import com.game.metrics.MetricsReporter;
+import com.game.models.AnalysisResult;
 import com.game.models.GameConfig;
 import com.game.models.GameResult;
+import com.game.models.SimulationResult;
+import com.game.server.GameServer;
 import com.game.services.GameEngine;
+import com.game.services.MonteCarloSimulator;
+import com.game.services.PayoutAnalyzer;
+import com.game.services.OutcomePregenerator;
+import com.game.services.PayoutTable;
+import com.game.services.ConfigValidator;
+import com.game.services.RandomSource;
+import com.game.utils.BoardRescorer;
+import com.game.utils.ConfigReloader;
+import com.game.utils.ConfigSnapshot;
+import com.game.utils.EngineRegistry;
 import com.game.utils.JsonUtils;
+import com.game.utils.NdjsonWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Main {
-    public static void main(String[] args) {
-        try {
-            // Parse command line arguments
+    /**
+     * The parsed command line; see {@link #printUsage()} for what each flag does.
+     */
+    record Options(String configPath, String snapshotPath, String compileConfigPath, double bettingAmount,
+                   boolean hasBettingAmount, long simulateSpins, long spins, String outputPath, Integer servePort,
+                   int maxConcurrentRequests, long maxBatchSize, Long seed, int threads, boolean analyze,
+                   int maxStates, boolean recordSeeds, boolean printConfigHash, boolean withMetrics,
+                   long metricsInterval, boolean watchConfig, String gamesPath, long engineCacheMegabytes,
+                   String journalPath, long journalSegmentMegabytes, String replayJournalPath, String evaluatePath,
+                   long payoutTableMegabytes, String payoutTableCache, int pregenerateDepth, int pregenerateThreads,
+                   OutcomePregenerator.DrainPolicy drainPolicy) {
+
+        static Options parse(String[] args) {
             String configPath = null;
+            String snapshotPath = null;
+            String compileConfigPath = null;
             double bettingAmount = 0;
+            boolean hasBettingAmount = false;
+            long simulateSpins = 0;
+            long spins = 0;
+            String outputPath = null;
+            Integer servePort = null;
+            int maxConcurrentRequests = 256;
+            long maxBatchSize = 100_000;
+            Long seed = null;
+            int threads = Runtime.getRuntime().availableProcessors();
+            boolean analyze = false;
+            int maxStates = 1_000_000;
+            boolean recordSeeds = false;
+            boolean printConfigHash = false;
+            boolean withMetrics = false;
+            long metricsInterval = 0;
+            boolean watchConfig = false;
+            String gamesPath = null;
+            long engineCacheMegabytes = 64;
+            String journalPath = null;
+            long journalSegmentMegabytes = SpinJournal.DEFAULT_SEGMENT_BYTES >> 20;
+            String replayJournalPath = null;
+            String evaluatePath = null;
+            long payoutTableMegabytes = 0;
+            String payoutTableCache = null;
+            int pregenerateDepth = 0;
+            int pregenerateThreads = 1;
+            OutcomePregenerator.DrainPolicy drainPolicy = OutcomePregenerator.DrainPolicy.FALLBACK;
 
             for (int i = 0; i < args.length; i++) {
                 if (args[i].equals("--config") && i + 1 < args.length) {
                     configPath = args[i + 1];
+                } else if (args[i].equals("--snapshot") && i + 1 < args.length) {
+                    snapshotPath = args[i + 1];
+                } else if (args[i].equals("--compile-config") && i + 1 < args.length) {
+                    compileConfigPath = args[i + 1];
                 } else if (args[i].equals("--betting-amount") && i + 1 < args.length) {
                     bettingAmount = Double.parseDouble(args[i + 1]);
+                    hasBettingAmount = true;
+                } else if (args[i].equals("--simulate") && i + 1 < args.length) {
+                    simulateSpins = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--spins") && i + 1 < args.length) {
+                    spins = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--output") && i + 1 < args.length) {
+                    outputPath = args[i + 1];
+                } else if (args[i].equals("--serve") && i + 1 < args.length) {
+                    servePort = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("--max-concurrent-requests") && i + 1 < args.length) {
+                    maxConcurrentRequests = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("--max-batch-size") && i + 1 < args.length) {
+                    maxBatchSize = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                    seed = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("--analyze")) {
+                    analyze = true;
+                } else if (args[i].equals("--max-states") && i + 1 < args.length) {
+                    maxStates = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("--record-seeds")) {
+                    recordSeeds = true;
+                } else if (args[i].equals("--config-hash")) {
+                    printConfigHash = true;
+                } else if (args[i].equals("--metrics")) {
+                    withMetrics = true;
+                } else if (args[i].equals("--metrics-interval") && i + 1 < args.length) {
+                    withMetrics = true;
+                    metricsInterval = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--watch-config")) {
+                    watchConfig = true;
+                } else if (args[i].equals("--games") && i + 1 < args.length) {
+                    gamesPath = args[i + 1];
+                } else if (args[i].equals("--engine-cache-mb") && i + 1 < args.length) {
+                    engineCacheMegabytes = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--journal") && i + 1 < args.length) {
+                    journalPath = args[i + 1];
+                } else if (args[i].equals("--journal-segment-mb") && i + 1 < args.length) {
+                    journalSegmentMegabytes = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--replay-journal") && i + 1 < args.length) {
+                    replayJournalPath = args[i + 1];
+                } else if (args[i].equals("--evaluate") && i + 1 < args.length) {
+                    evaluatePath = args[i + 1];
+                } else if (args[i].equals("--payout-table-mb") && i + 1 < args.length) {
+                    payoutTableMegabytes = Long.parseLong(args[i + 1]);
+                } else if (args[i].equals("--payout-table-cache") && i + 1 < args.length) {
+                    payoutTableCache = args[i + 1];
+                } else if (args[i].equals("--pregenerate") && i + 1 < args.length) {
+                    pregenerateDepth = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("--pregenerate-threads") && i + 1 < args.length) {
+                    pregenerateThreads = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("--when-drained") && i + 1 < args.length) {
+                    drainPolicy = OutcomePregenerator.DrainPolicy.parse(args[i + 1]);
                 }
             }
+            return new Options(configPath, snapshotPath, compileConfigPath, bettingAmount, hasBettingAmount,
+                    simulateSpins, spins, outputPath, servePort, maxConcurrentRequests, maxBatchSize, seed, threads,
+                    analyze, maxStates, recordSeeds, printConfigHash, withMetrics, metricsInterval, watchConfig,
+                    gamesPath, engineCacheMegabytes, journalPath, journalSegmentMegabytes, replayJournalPath,
+                    evaluatePath, payoutTableMegabytes, payoutTableCache, pregenerateDepth, pregenerateThreads,
+                    drainPolicy);
+        }
+
+        boolean servingGames() { return servePort != null && gamesPath != null; }
+
+        /**
+         * @return Whether the flags name a configuration and, when the mode plays spins, a bet.
+         */
+        boolean isComplete() {
+            boolean needsBet = servePort == null && !printConfigHash && replayJournalPath == null
+                    && compileConfigPath == null && evaluatePath == null;
+            boolean hasConfig = compileConfigPath != null ? configPath != null : configPath != null || snapshotPath != null;
+            return (hasConfig || (servingGames() && !printConfigHash)) && (bettingAmount > 0 || !needsBet);
+        }
 
-            if (configPath == null || bettingAmount <= 0) {
-                System.out.println("Usage: java -jar scratch-game.jar --config <config-file> --betting-amount <amount>");
+        /**
+         * @return Whether to record every spin played, which simulated and evaluated spins never are.
+         */
+        boolean journaling() {
+            return journalPath != null && simulateSpins == 0 && !analyze && evaluatePath == null;
+        }
+
+        /**
+         * @return How to look small boards up in a table of every layout, or {@code null} to evaluate them.
+         */
+        PayoutTable.Options payoutTable() {
+            return payoutTableMegabytes > 0
+                    ? new PayoutTable.Options(payoutTableMegabytes << 20,
+                            payoutTableCache != null ? Path.of(payoutTableCache) : null, threads, System.err)
+                    : null;
+        }
+
+        /**
+         * @return Where to write a stream of results: the output file, or standard output.
+         */
+        OutputStream openOutput() throws IOException {
+            return new BufferedOutputStream(outputPath != null ? new FileOutputStream(outputPath) : System.out, 1 << 16);
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            // Parse command line arguments
+            Options options = Options.parse(args);
+            if (!options.isComplete()) {
+                printUsage();
                 return;
             }
 
             // Load game configuration
-            GameConfig config = JsonUtils.loadConfig(configPath);
-
-            // Create and play game
-            GameEngine game = new GameEngine(config);
-            GameResult result = game.play(bettingAmount);
+            // A compiled snapshot loads without the object mapper, and carries its version
+            ConfigSnapshot snapshot = options.snapshotPath() != null && options.compileConfigPath() == null
+                    ? ConfigSnapshot.read(Path.of(options.snapshotPath())) : null;
+            GameConfig config = snapshot != null ? snapshot.config()
+                    : options.configPath() != null ? JsonUtils.loadConfig(options.configPath()) : null;
+            String configVersion = snapshot != null ? snapshot.version()
+                    : config != null ? JsonUtils.configVersion(config) : null;
 
-            // Output result as JSON
-            System.out.println(JsonUtils.toJson(result));
+            if (options.compileConfigPath() != null) {
+                compileConfig(options, config);
+            } else if (options.printConfigHash()) {
+                System.out.println(snapshot != null ? snapshot.hash() : JsonUtils.configHash(config));
+            } else if (options.replayJournalPath() != null) {
+                replayJournal(options, config, configVersion);
+            } else if (options.evaluatePath() != null) {
+                evaluate(options, config, configVersion);
+            } else {
+                play(options, config, configVersion);
+            }
 
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private static void printUsage() {
+        System.out.println("Usage: java -jar scratch-game.jar --config <config-file> --betting-amount <amount>");
+        System.out.println("       [--seed <seed> | --record-seeds] [--journal <dir> [--journal-segment-mb <megabytes>]]");
+        System.out.println("       [--spins <spins> [--seed <seed> | --record-seeds] [--output <file>]]");
+        System.out.println("       [--simulate <spins> [--seed <seed>] [--threads <threads>]]");
+        System.out.println("       [--analyze [--max-states <states>] [--threads <threads>]]");
+        System.out.println("       [--payout-table-mb <megabytes> [--payout-table-cache <dir>]]");
+        System.out.println("   or: java -jar scratch-game.jar [--config <config-file>] --serve <port>");
+        System.out.println("       [--games <config-dir> [--engine-cache-mb <megabytes>]]");
+        System.out.println("       [--max-concurrent-requests <requests>] [--max-batch-size <spins>]");
+        System.out.println("       [--watch-config] [--metrics [--metrics-interval <seconds>]]");
+        System.out.println("       [--pregenerate <depth> [--pregenerate-threads <threads>]");
+        System.out.println("        [--when-drained block|fallback|fail]]");
+        System.out.println("       [--journal <dir> [--journal-segment-mb <megabytes>]]");
+        System.out.println("       [--payout-table-mb <megabytes> [--payout-table-cache <dir>]]");
+        System.out.println("   or: java -jar scratch-game.jar --config <config-file> --replay-journal <dir>");
+        System.out.println("       [--output <file>] [--threads <threads>]");
+        System.out.println("   or: java -jar scratch-game.jar --config <config-file> --evaluate <boards.ndjson|boards.csv>");
+        System.out.println("       [--betting-amount <amount>] [--output <file>] [--threads <threads>]");
+        System.out.println("       [--payout-table-mb <megabytes> [--payout-table-cache <dir>]]");
+        System.out.println("   or: java -jar scratch-game.jar --config <config-file> --config-hash");
+        System.out.println("   or: java -jar scratch-game.jar --config <config-file> --compile-config <snapshot-file>");
+        System.out.println("   --snapshot <snapshot-file> can stand in for --config <config-file> anywhere else");
+    }
+
+    /**
+     * This method validates the configuration and writes its snapshot.
+     */
+    private static void compileConfig(Options options, GameConfig config) throws IOException {
+        ConfigValidator.validate(config);
+        ConfigSnapshot compiled = ConfigSnapshot.write(config, Path.of(options.compileConfigPath()));
+        System.out.println("Compiled config version " + compiled.version() + " to " + options.compileConfigPath());
+    }
+
+    /**
+     * This method streams a journal back out as JSON, checking every spin against the configuration.
+     */
+    private static void replayJournal(Options options, GameConfig config, String configVersion)
+            throws IOException, InterruptedException {
+        GameEngine engine = new GameEngine(config, configVersion, RandomSource.threadLocal(), false);
+        // The journal of this config version, or the directory itself when it holds the segments
+        Path journalDirectory = SpinJournals.directoryOf(Path.of(options.replayJournalPath()), configVersion);
+        JournalReader reader = JournalReader.open(Files.isDirectory(journalDirectory)
+                ? journalDirectory : Path.of(options.replayJournalPath()));
+        try (OutputStream out = options.openOutput()) {
+            JournalReplayer.Summary summary = new JournalReplayer(engine, options.threads()).replay(reader, out, System.err);
+            System.err.println("Replayed " + summary.spins() + " spins from " + reader.segments().size()
+                    + " segments: " + summary.mismatches() + " mismatches, " + summary.skipped()
+                    + " skipped (other config versions), " + summary.incomplete() + " incomplete");
+        }
+    }
+
+    /**
+     * This method scores the boards of a file and streams them back out as JSON, in order.
+     */
+    private static void evaluate(Options options, GameConfig config, String configVersion)
+            throws IOException, InterruptedException {
+        ConfigValidator.validate(config);
+        GameEngine engine = new GameEngine(config, configVersion, RandomSource.threadLocal(), false, null,
+                options.payoutTable());
+        try (OutputStream out = options.openOutput()) {
+            BoardRescorer.Summary summary = new BoardRescorer(engine, options.threads(),
+                    options.hasBettingAmount() ? options.bettingAmount() : null)
+                    .evaluate(Path.of(options.evaluatePath()), out, System.err);
+            System.err.println("Evaluated " + summary.boards() + " boards from " + options.evaluatePath() + ": "
+                    + summary.checked() + " recorded rewards checked, " + summary.mismatches()
+                    + " mismatches, " + summary.rejected() + " rejected");
+        }
+    }
+
+    /**
+     * This method creates the game and runs the mode that plays it: serving, analysis, simulation, a batch
+     * of spins or a single spin.
+     */
+    private static void play(Options options, GameConfig config, String configVersion) throws Exception {
+        // Each config version, game variants and reloads included, gets a journal sized for its boards
+        SpinJournals journal = options.journaling()
+                ? new SpinJournals(Path.of(options.journalPath()), options.journalSegmentMegabytes() << 20)
+                : null;
+
+        // Seed every spin when its results may have to be replayed
+        RandomSource random = options.recordSeeds() || options.servePort() != null || journal != null
+                ? RandomSource.seeded() : RandomSource.threadLocal();
+        PayoutTable.Options payoutTable = options.payoutTable();
+        BiFunction<GameConfig, String, GameEngine> compiler = (compiled, version) ->
+                new GameEngine(compiled, version, random, options.withMetrics(),
+                        journal != null ? journal.forConfig(compiled, version) : null, payoutTable);
+
+        // Game variants compile on first use, without metrics of their own
+        EngineRegistry games = options.servingGames()
+                ? new EngineRegistry(Path.of(options.gamesPath()), options.engineCacheMegabytes() << 20,
+                        (compiled, version) -> new GameEngine(compiled, version, random, false,
+                                journal != null ? journal.forConfig(compiled, version) : null, payoutTable))
+                : null;
+
+        // Serve single spins from outcomes generated in the background when asked to, moving the
+        // producers to every reloaded engine
+        AtomicReference<OutcomePregenerator> pregenerated = new AtomicReference<>();
+        Consumer<GameEngine> pregenerate = options.servePort() != null && options.pregenerateDepth() > 0
+                ? engine -> {
+                    OutcomePregenerator outcomes = engine.pregenerate(options.pregenerateDepth(),
+                            options.pregenerateThreads(), options.drainPolicy());
+                    outcomes.metrics().register();
+                    OutcomePregenerator previous = pregenerated.getAndSet(outcomes);
+                    if (previous != null) {
+                        previous.close();
+                    }
+                }
+                : engine -> { };
+
+        // Create the game, following the config file when asked to and publishing each new engine's
+        // metrics in place of the old
+        Supplier<GameEngine> engines;
+        ConfigReloader reloader = null;
+        if (config == null) {
+            engines = null;
+        } else if (options.watchConfig()) {
+            if (options.configPath() == null) {
+                throw new IllegalArgumentException("--watch-config follows a config file, not a snapshot");
+            }
+            reloader = new ConfigReloader(Path.of(options.configPath()), compiler, engine -> {
+                if (options.withMetrics()) {
+                    engine.metrics().register();
+                }
+                pregenerate.accept(engine);
+            });
+            engines = reloader;
+        } else {
+            ConfigValidator.validate(config);
+            GameEngine engine = compiler.apply(config, configVersion);
+            engines = () -> engine;
+        }
+        GameEngine game = engines != null ? engines.get() : null;
+        if (game != null) {
+            pregenerate.accept(game);
+        }
+        if (payoutTable != null && game != null) {
+            PayoutTable table = game.rewardCalculator().payoutTable();
+            System.err.println(table != null
+                    ? "Payout table: " + table.layoutCount() + " layouts, " + table.outcomeCount() + " outcomes"
+                    : "Payout table: does not fit in " + options.payoutTableMegabytes() + " MB, evaluating boards");
+        }
+
+        // Publish the metrics over JMX, and on standard error when an interval is given
+        if (options.withMetrics() && game != null) {
+            game.metrics().register();
+        }
+        MetricsReporter reporter = options.metricsInterval() > 0 && game != null
+                ? MetricsReporter.start(() -> engines.get().metrics(), Duration.ofSeconds(options.metricsInterval()),
+                        System.err)
+                : null;
+
+        if (options.servePort() != null) {
+            serve(options, engines, games, reloader, pregenerated, journal, reporter);
+            return;
+        }
+
+        // The last metrics report follows the last spin
+        try (journal; reporter) {
+            if (options.analyze()) {
+                analyze(options, game);
+            } else if (options.simulateSpins() > 0) {
+                simulate(options, game);
+            } else if (options.spins() > 0) {
+                playBatch(options, game);
+            } else {
+                playSingle(options, game);
+            }
+        }
+    }
+
+    /**
+     * This method serves spins over HTTP until the process is stopped, closing everything the game holds
+     * when it is.
+     */
+    private static void serve(Options options, Supplier<GameEngine> engines, EngineRegistry games,
+                              ConfigReloader reloader, AtomicReference<OutcomePregenerator> pregenerated,
+                              SpinJournals journal, MetricsReporter reporter) throws IOException {
+        GameServer server = new GameServer(engines, games, new InetSocketAddress(options.servePort()),
+                options.maxConcurrentRequests(), options.maxBatchSize());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (reloader != null) {
+                    reloader.close();
+                }
+                server.stop(Duration.ofSeconds(10));
+                if (pregenerated.get() != null) {
+                    pregenerated.get().close();
+                }
+                if (journal != null) {
+                    journal.close();
+                }
+                if (reporter != null) {
+                    reporter.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        server.start();
+        GameEngine game = engines != null ? engines.get() : null;
+        System.out.println("Serving on port " + server.port()
+                + (game != null ? " with config version " + game.version() : "")
+                + (games != null ? (game != null ? " and" : " with") + " the games in " + options.gamesPath() : ""));
+    }
+
+    /**
+     * This method computes the exact return of the configuration and outputs it as JSON.
+     */
+    private static void analyze(Options options, GameEngine game) throws Exception {
+        AnalysisResult analysis = new PayoutAnalyzer(game, options.threads(), options.maxStates())
+                .analyze(options.bettingAmount(), true);
+        System.out.println(JsonUtils.toJson(analysis));
+    }
+
+    /**
+     * This method runs a Monte Carlo simulation and outputs its report as JSON.
+     */
+    private static void simulate(Options options, GameEngine game) throws Exception {
+        long masterSeed = options.seed() != null ? options.seed() : System.nanoTime();
+        SimulationResult report = new MonteCarloSimulator(game, options.threads())
+                .run(options.simulateSpins(), options.bettingAmount(), masterSeed);
+        System.out.println(JsonUtils.toJson(report));
+    }
+
+    /**
+     * This method plays a batch of spins and streams the results as newline-delimited JSON.
+     */
+    private static void playBatch(Options options, GameEngine game) throws IOException {
+        try (NdjsonWriter writer = options.outputPath() != null
+                ? JsonUtils.ndjsonWriter(new FileOutputStream(options.outputPath()), true)
+                : JsonUtils.ndjsonWriter(System.out, false)) {
+            if (options.seed() != null) {
+                game.playBatch(options.bettingAmount(), options.spins(), options.seed(), writer);
+            } else {
+                game.playBatch(options.bettingAmount(), options.spins(), writer);
+            }
+        }
+    }
+
+    /**
+     * This method plays one spin and outputs it as JSON; a seed replays the spin it was recorded with.
+     */
+    private static void playSingle(Options options, GameEngine game) throws IOException {
+        GameResult result = options.seed() != null
+                ? game.play(options.bettingAmount(), options.seed()) : game.play(options.bettingAmount());
+
+        // Output result as JSON
+        System.out.println(JsonUtils.toJson(result));
+    }
+}
@@ -0,0 +1,161 @@
+package com.game.journal;
+
+import com.game.models.GameConfig;
+import com.game.services.SymbolTable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The fixed-width binary layout of the spin records of a journal segment.
+ * <p>
+ * Every record has the same size within a segment, so the position of a record follows from its number
+ * alone. All values are little-endian:
+ * <pre>
+ *  offset  size  field
+ *       0     8  timestamp, in milliseconds since the epoch; written last, 0 while the record is incomplete
+ *       8     8  config version, its 16 hex digits as a number
+ *      16     8  seed
+ *      24     8  bet (double)
+ *      32     8  reward (double)
+ *      40     1  flags: {@link #FLAG_SEEDED}, {@link #FLAG_VERSIONED}
+ *      41     1  rows
+ *      42     1  columns
+ *      43     1  reserved
+ *      44     n  board: one symbol ID per cell in row-major order, packed {@code symbolBits} bits per cell
+ *       .     8w combination bitmask: bit c of word c / 64 is set when combination c applies to any symbol
+ *       .     8v bonus bitmask: bit s of word s / 64 is set when symbol s is an applied bonus symbol
+ * </pre>
+ * The bitmasks start at the next multiple of 8, and the record size is rounded up to one as well.
+ */
+public final class JournalLayout {
+    static final int HEADER_BYTES = 64;
+    static final int MAGIC = 0x4A4E5053;  // "SPNJ" in little-endian
+    static final int FORMAT = 1;
+
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int SEED_OFFSET = 16;
+    static final int BET_OFFSET = 24;
+    static final int REWARD_OFFSET = 32;
+    static final int FLAGS_OFFSET = 40;
+    static final int ROWS_OFFSET = 41;
+    static final int COLUMNS_OFFSET = 42;
+    static final int BOARD_OFFSET = 44;
+
+    static final byte FLAG_SEEDED = 1;
+    static final byte FLAG_VERSIONED = 2;
+
+    private final int cells;
+    private final int symbolBits;
+    private final int combinationWords;
+    private final int bonusWords;
+    private final int combinationsOffset;
+    private final int bonusOffset;
+    private final int recordSize;
+
+    /**
+     * @param cells The largest number of cells a board may have.
+     * @param symbolBits The number of bits per cell, enough for the largest symbol ID.
+     * @param combinationWords The number of 64-bit words of the combination bitmask.
+     * @param bonusWords The number of 64-bit words of the bonus bitmask.
+     */
+    public JournalLayout(int cells, int symbolBits, int combinationWords, int bonusWords) {
+        if (cells < 1 || cells > Byte.MAX_VALUE * Byte.MAX_VALUE || symbolBits < 1 || symbolBits > 7
+                || combinationWords < 0 || bonusWords < 0) {
+            throw new IllegalArgumentException("Invalid journal layout: " + cells + " cells of " + symbolBits
+                    + " bits, " + combinationWords + " combination and " + bonusWords + " bonus words");
+        }
+        this.cells = cells;
+        this.symbolBits = symbolBits;
+        this.combinationWords = combinationWords;
+        this.bonusWords = bonusWords;
+        this.combinationsOffset = align(BOARD_OFFSET + boardBytes(cells, symbolBits));
+        this.bonusOffset = combinationsOffset + 8 * combinationWords;
+        this.recordSize = bonusOffset + 8 * bonusWords;
+    }
+
+    /**
+     * This method sizes the records for the spins of one configuration.
+     *
+     * @param config The game configuration.
+     * @return The smallest layout that fits every spin of the configuration.
+     */
+    public static JournalLayout forConfig(GameConfig config) {
+        int symbolCount = SymbolTable.compile(config).size();
+        int combinationCount = config.getWinCombinations() != null ? config.getWinCombinations().size() : 0;
+        return new JournalLayout(Math.max(1, config.getRows() * config.getColumns()), bitsFor(symbolCount),
+                words(combinationCount), words(symbolCount));
+    }
+
+    /**
+     * This method checks that the spins of a compiled configuration fit in the records.
+     *
+     * @param cells The number of cells of the board.
+     * @param symbolCount The number of symbol IDs, including the unknown one.
+     * @param combinationCount The number of win combinations.
+     * @throws IllegalArgumentException If they do not fit.
+     */
+    public void check(int cells, int symbolCount, int combinationCount) {
+        if (cells > this.cells || bitsFor(symbolCount) > symbolBits
+                || words(combinationCount) > combinationWords || words(symbolCount) > bonusWords) {
+            throw new IllegalArgumentException("A board of " + cells + " cells with " + symbolCount + " symbols and "
+                    + combinationCount + " win combinations does not fit the journal records");
+        }
+    }
+
+    void writeHeader(ByteBuffer buffer, int recordsPerSegment, long segment, long createdMillis) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT);
+        buffer.putInt(8, recordSize);
+        buffer.putInt(12, cells);
+        buffer.putInt(16, symbolBits);
+        buffer.putInt(20, combinationWords);
+        buffer.putInt(24, bonusWords);
+        buffer.putInt(28, recordsPerSegment);
+        buffer.putLong(32, segment);
+        buffer.putLong(40, createdMillis);
+    }
+
+    /**
+     * This method reads the layout back from a segment header.
+     *
+     * @throws IllegalArgumentException If the buffer does not hold a segment this version can read.
+     */
+    static JournalLayout readHeader(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a spin journal segment");
+        }
+        if (buffer.getInt(4) != FORMAT) {
+            throw new IllegalArgumentException("unsupported journal format " + buffer.getInt(4));
+        }
+        JournalLayout layout = new JournalLayout(buffer.getInt(12), buffer.getInt(16), buffer.getInt(20), buffer.getInt(24));
+        if (layout.recordSize != buffer.getInt(8)) {
+            throw new IllegalArgumentException("inconsistent record size " + buffer.getInt(8));
+        }
+        return layout;
+    }
+
+    static int bitsFor(int symbolCount) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(symbolCount - 1));
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) / 64;
+    }
+
+    private static int boardBytes(int cells, int symbolBits) {
+        return (cells * symbolBits + 7) / 8;
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    public int cells() { return cells; }
+    public int symbolBits() { return symbolBits; }
+    public int combinationWords() { return combinationWords; }
+    public int bonusWords() { return bonusWords; }
+    public int recordSize() { return recordSize; }
+    int combinationsOffset() { return combinationsOffset; }
+    int bonusOffset() { return bonusOffset; }
+}
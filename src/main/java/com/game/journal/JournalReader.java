@@ -0,0 +1,146 @@
+package com.game.journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments of a spin journal, in the order they were written.
+ * <p>
+ * Each segment is memory-mapped read-only and describes its own layout in its header, so segments written
+ * with different layouts can sit in the same directory. Segments are independent of each other and may be
+ * read from different threads; a {@link Segment} itself is safe to read from several threads at once.
+ */
+public final class JournalReader {
+    private final List<Segment> segments;
+
+    /**
+     * A mapped segment file.
+     */
+    public static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final JournalLayout layout;
+        private final int records;
+
+        Segment(Path file, MappedByteBuffer buffer, JournalLayout layout) {
+            this.file = file;
+            this.buffer = buffer;
+            this.layout = layout;
+            this.records = (buffer.limit() - JournalLayout.HEADER_BYTES) / layout.recordSize();
+        }
+
+        public Path file() { return file; }
+        public JournalLayout layout() { return layout; }
+
+        /**
+         * @return The number of record slots, including any left incomplete.
+         */
+        public int records() { return records; }
+
+        /**
+         * This method reads one record.
+         *
+         * @param index The index of the record in the segment.
+         * @param into The record to fill.
+         * @return {@code false} if the record was never finished, in which case {@code into} is unchanged.
+         */
+        public boolean read(int index, JournalRecord into) {
+            int offset = JournalLayout.HEADER_BYTES + index * layout.recordSize();
+            long timestamp = (long) SpinJournal.LONGS.getAcquire(buffer, offset + JournalLayout.TIMESTAMP_OFFSET);
+            if (timestamp == 0) {
+                return false;
+            }
+
+            // Step 1: The fixed fields
+            into.timestamp = timestamp;
+            into.version = buffer.getLong(offset + JournalLayout.VERSION_OFFSET);
+            into.seed = buffer.getLong(offset + JournalLayout.SEED_OFFSET);
+            into.bettingAmount = buffer.getDouble(offset + JournalLayout.BET_OFFSET);
+            into.reward = buffer.getDouble(offset + JournalLayout.REWARD_OFFSET);
+            into.flags = buffer.get(offset + JournalLayout.FLAGS_OFFSET);
+            into.rows = buffer.get(offset + JournalLayout.ROWS_OFFSET) & 0xFF;
+            into.columns = buffer.get(offset + JournalLayout.COLUMNS_OFFSET) & 0xFF;
+
+            // Step 2: The board, unpacked
+            int cells = Math.min(into.rows * into.columns, layout.cells());
+            if (into.board.length != cells) {
+                into.board = new byte[cells];
+            }
+            int symbolBits = layout.symbolBits();
+            int mask = (1 << symbolBits) - 1;
+            int position = offset + JournalLayout.BOARD_OFFSET;
+            int bits = 0;
+            int available = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (available < symbolBits) {
+                    bits |= (buffer.get(position++) & 0xFF) << available;
+                    available += 8;
+                }
+                into.board[cell] = (byte) (bits & mask);
+                bits >>>= symbolBits;
+                available -= symbolBits;
+            }
+
+            // Step 3: The bitmasks
+            into.combinationMask = readWords(offset + layout.combinationsOffset(), layout.combinationWords(), into.combinationMask);
+            into.bonusMask = readWords(offset + layout.bonusOffset(), layout.bonusWords(), into.bonusMask);
+            return true;
+        }
+
+        private long[] readWords(int offset, int count, long[] words) {
+            if (words.length != count) {
+                words = new long[count];
+            }
+            for (int i = 0; i < count; i++) {
+                words[i] = buffer.getLong(offset + 8 * i);
+            }
+            return words;
+        }
+    }
+
+    private JournalReader(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * This method maps every segment of a journal.
+     *
+     * @param directory The directory of the segment files.
+     * @return A reader over the segments, in the order they were written.
+     * @throws IllegalArgumentException If a segment file is not a journal segment this version can read.
+     */
+    public static JournalReader open(Path directory) throws IOException {
+        Path[] files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> SpinJournal.SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toArray(Path[]::new);
+        }
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                try {
+                    segments.add(new Segment(file, buffer, JournalLayout.readHeader(buffer)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ": " + e.getMessage());
+                }
+            }
+        }
+        return new JournalReader(segments);
+    }
+
+    /**
+     * @return The segments, oldest first.
+     */
+    public List<Segment> segments() { return segments; }
+}
@@ -0,0 +1,58 @@
+package com.game.journal;
+
+import java.util.HexFormat;
+
+/**
+ * One spin read back from a journal. Readers fill the same instance record after record, so copy anything
+ * that must outlive the next read.
+ */
+public final class JournalRecord {
+    long timestamp;
+    long version;
+    long seed;
+    double bettingAmount;
+    double reward;
+    byte flags;
+    int rows;
+    int columns;
+    byte[] board = new byte[0];
+    long[] combinationMask = new long[0];
+    long[] bonusMask = new long[0];
+
+    /**
+     * @return When the spin was recorded, in milliseconds since the epoch.
+     */
+    public long timestamp() { return timestamp; }
+
+    /**
+     * @return The version of the configuration the spin was played on, or {@code null}.
+     */
+    public String version() {
+        return (flags & JournalLayout.FLAG_VERSIONED) != 0 ? HexFormat.of().toHexDigits(version) : null;
+    }
+
+    /**
+     * @return The seed the spin was played from, or {@code null} when it was not seeded.
+     */
+    public Long seed() { return (flags & JournalLayout.FLAG_SEEDED) != 0 ? seed : null; }
+
+    public double bettingAmount() { return bettingAmount; }
+    public double reward() { return reward; }
+    public int rows() { return rows; }
+    public int columns() { return columns; }
+
+    /**
+     * @return The board, one symbol ID per cell in row-major order; {@code rows * columns} cells long.
+     */
+    public byte[] board() { return board; }
+
+    /**
+     * @return Bit c of word c / 64 is set when combination c applied to any symbol.
+     */
+    public long[] combinationMask() { return combinationMask; }
+
+    /**
+     * @return Bit s of word s / 64 is set when symbol s was an applied bonus symbol.
+     */
+    public long[] bonusMask() { return bonusMask; }
+}
@@ -0,0 +1,188 @@
+package com.game.journal;
+
+import com.game.models.GameResult;
+import com.game.services.GameEngine;
+import com.game.services.SpinEvaluation;
+import com.game.services.SymbolTable;
+import com.game.utils.GameResultJsonWriter;
+import com.game.utils.JsonUtils;
+import com.game.utils.OrderedChunks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams a spin journal back out as newline-delimited JSON, checking every spin against a configuration.
+ * <p>
+ * Each record's board is evaluated again by the engine of the configuration: the reward is recalculated
+ * by its {@link com.game.services.RewardCalculator}, and the winning combinations and bonus symbols are
+ * compared with the bitmasks in the record. A line is exactly what the game printed for the spin, with the
+ * reward as recorded, so a record that does not match shows in the output as it was journaled.
+ * <p>
+ * Segments are cut into chunks that are replayed in parallel and written out in journal order by
+ * {@link OrderedChunks}.
+ */
+public final class JournalReplayer {
+    private static final int CHUNK_RECORDS = 8192;
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
+    private final GameEngine engine;
+    private final int threads;
+    private final ThreadLocal<GameResultJsonWriter> writers =
+            ThreadLocal.withInitial(() -> new GameResultJsonWriter(1 << 20));
+
+    /**
+     * The outcome of a replay.
+     *
+     * @param spins The number of spins checked against the configuration.
+     * @param mismatches How many of them did not match.
+     * @param skipped The number of spins played on another version of the configuration, left out.
+     * @param incomplete The number of records never finished, left out.
+     */
+    public record Summary(long spins, long mismatches, long skipped, long incomplete) { }
+
+    private record Chunk(byte[] lines, long spins, long skipped, long incomplete, List<String> mismatches) { }
+
+    /**
+     * @param engine The engine of the configuration the spins were played on.
+     * @param threads The number of threads replaying chunks.
+     */
+    public JournalReplayer(GameEngine engine, int threads) {
+        this.engine = engine;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * This method replays every record of a journal.
+     *
+     * @param reader The journal.
+     * @param out Receives the spins as newline-delimited JSON, or {@code null} to only check them.
+     * @param log Receives a line for each mismatch, up to a limit.
+     * @return The counts of the replay.
+     */
+    public Summary replay(JournalReader reader, OutputStream out, PrintStream log) throws IOException, InterruptedException {
+        try (OrderedChunks<Chunk, Summary> chunks = new OrderedChunks<>(Executors.newFixedThreadPool(threads),
+                threads, new Summary(0, 0, 0, 0), (chunk, summary) -> write(chunk, out, log, summary))) {
+            for (JournalReader.Segment segment : reader.segments()) {
+                for (int from = 0; from < segment.records(); from += CHUNK_RECORDS) {
+                    int start = from;
+                    int end = Math.min(from + CHUNK_RECORDS, segment.records());
+                    chunks.submit(() -> replay(segment, start, end, out != null));
+                }
+            }
+            Summary summary = chunks.finish();
+            if (out != null) {
+                out.flush();
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * This method writes out a replayed chunk.
+     *
+     * @return The summary with the chunk added.
+     */
+    private static Summary write(Chunk chunk, OutputStream out, PrintStream log, Summary summary) throws IOException {
+        if (out != null) {
+            out.write(chunk.lines());
+        }
+        long reported = summary.mismatches();
+        for (String mismatch : chunk.mismatches()) {
+            if (reported++ < MAX_REPORTED_MISMATCHES) {
+                log.println(mismatch);
+            }
+        }
+        return new Summary(summary.spins() + chunk.spins(), summary.mismatches() + chunk.mismatches().size(),
+                summary.skipped() + chunk.skipped(), summary.incomplete() + chunk.incomplete());
+    }
+
+    private Chunk replay(JournalReader.Segment segment, int from, int to, boolean withOutput) {
+        GameResultJsonWriter writer = writers.get();
+        writer.reset();
+        JournalRecord record = new JournalRecord();
+        List<String> mismatches = new ArrayList<>();
+        long spins = 0;
+        long skipped = 0;
+        long incomplete = 0;
+        for (int index = from; index < to; index++) {
+            if (!segment.read(index, record)) {
+                incomplete++;
+                continue;
+            }
+            if (!sameVersion(record.version(), engine.version())) {
+                skipped++;
+                continue;
+            }
+            spins++;
+            if (record.rows() != engine.rows() || record.columns() != engine.columns()) {
+                mismatches.add(describe(segment, index, "a " + record.rows() + "x" + record.columns() + " board"));
+                continue;
+            }
+
+            // Step 1: Evaluate the recorded board again, and compare
+            GameResult result = engine.replay(record.board().clone(), record.reward(), record.seed());
+            SpinEvaluation evaluation = (SpinEvaluation) result.combinationsSource();
+            double reward = engine.rewardCalculator().calculateReward(result.board(), record.bettingAmount(), evaluation);
+            if (Double.compare(reward, record.reward()) != 0) {
+                mismatches.add(describe(segment, index, "a reward of " + record.reward() + " instead of " + reward));
+            } else if (!Arrays.equals(record.combinationMask(), combinationMask(evaluation, record.combinationMask().length))) {
+                mismatches.add(describe(segment, index, "other winning combinations"));
+            } else if (!Arrays.equals(record.bonusMask(), bonusMask(result.board(), evaluation, record.bonusMask().length))) {
+                mismatches.add(describe(segment, index, "other bonus symbols"));
+            }
+
+            // Step 2: Write the spin as the game did
+            if (withOutput) {
+                if (!writer.append(result)) {
+                    try {
+                        writer.append(JsonUtils.toJsonBytes(result));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                writer.append((byte) '\n');
+            }
+        }
+        return new Chunk(withOutput ? writer.toByteArray() : new byte[0], spins, skipped, incomplete, mismatches);
+    }
+
+    private static boolean sameVersion(String recorded, String version) {
+        return recorded == null ? version == null : recorded.equals(version);
+    }
+
+    private static String describe(JournalReader.Segment segment, int index, String problem) {
+        return "Mismatch: " + segment.file().getFileName() + " record " + index + " has " + problem;
+    }
+
+    private static long[] combinationMask(SpinEvaluation evaluation, int words) {
+        long[] mask = new long[words];
+        if (evaluation.isWinning()) {
+            for (int combination = 0; combination < evaluation.plan().combinationCount(); combination++) {
+                if (SpinJournal.appliesToAny(evaluation, combination) && combination >>> 6 < words) {
+                    mask[combination >>> 6] |= 1L << combination;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static long[] bonusMask(byte[] board, SpinEvaluation evaluation, int words) {
+        long[] mask = new long[words];
+        if (evaluation.isWinning()) {
+            SymbolTable symbols = evaluation.plan().symbols();
+            for (byte cell : board) {
+                if (symbols.isReportedBonus(cell) && cell >>> 6 < words) {
+                    mask[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,264 @@
+package com.game.journal;
+
+import com.game.services.SpinEvaluation;
+import com.game.services.SymbolTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * An append-only journal of every spin played, in the fixed-width binary records of a {@link JournalLayout}.
+ * <p>
+ * Records are written straight into memory-mapped segment files of a fixed size. A spin claims the next
+ * record number with a single atomic increment, which also tells it the segment and the slot to write to,
+ * so any number of threads append at once without locking each other out. A record's timestamp is
+ * written last, with release semantics: a record whose timestamp is still 0 was never finished, and
+ * readers skip it. A new segment is created by the first spin to claim a record in it; a segment whose
+ * records are all written is forced to disk and released.
+ * <p>
+ * Opening a journal on a directory that already holds segments starts a new segment after them.
+ */
+public final class SpinJournal implements Closeable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.journal");
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directory;
+    private final JournalLayout layout;
+    private final int recordsPerSegment;
+    private final long firstSegment;
+    private final AtomicLong nextRecord = new AtomicLong();
+    private final Map<Long, Segment> segments = new ConcurrentHashMap<>();
+    private final LongAdder appending = new LongAdder();
+    private volatile boolean closed;
+
+    private static final class Segment {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicInteger written = new AtomicInteger();
+
+        Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private SpinJournal(Path directory, JournalLayout layout, int recordsPerSegment, long firstSegment) {
+        this.directory = directory;
+        this.layout = layout;
+        this.recordsPerSegment = recordsPerSegment;
+        this.firstSegment = firstSegment;
+    }
+
+    /**
+     * This method opens a journal for appending.
+     *
+     * @param directory The directory of the segment files, created if needed.
+     * @param layout The layout of the records; every spin appended must fit it.
+     * @param segmentBytes The size of each segment file, header included.
+     * @return The journal, which starts a new segment on the first spin.
+     */
+    public static SpinJournal open(Path directory, JournalLayout layout, long segmentBytes) throws IOException {
+        long records = (segmentBytes - JournalLayout.HEADER_BYTES) / layout.recordSize();
+        if (records < 1 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal segments must hold at least one record of "
+                    + layout.recordSize() + " bytes and be smaller than 2 GiB");
+        }
+        Files.createDirectories(directory);
+        long last = -1;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    last = Math.max(last, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        return new SpinJournal(directory, layout, (int) records, last + 1);
+    }
+
+    /**
+     * This method records a spin. It may be called from any number of threads at once.
+     *
+     * @param version The version of the configuration, 16 hex digits, or {@code null}.
+     * @param seed The seed of the spin, or {@code null} when it was not seeded.
+     * @param bettingAmount The amount bet on the spin.
+     * @param board The board, one symbol ID per cell in row-major order.
+     * @param columns The number of columns of the board.
+     * @param evaluation The winning combinations of the board.
+     * @param reward The reward paid for the spin.
+     * @throws IllegalStateException If the journal is closed.
+     */
+    public void append(String version, Long seed, double bettingAmount, byte[] board, int columns,
+                       SpinEvaluation evaluation, double reward) {
+        appending.increment();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The spin journal is closed");
+            }
+            long record = nextRecord.getAndIncrement();
+            long segmentNumber = firstSegment + record / recordsPerSegment;
+            Segment segment = segments.computeIfAbsent(segmentNumber, this::createSegment);
+            write(segment.buffer, JournalLayout.HEADER_BYTES + (int) (record % recordsPerSegment) * layout.recordSize(),
+                    version, seed, bettingAmount, board, columns, evaluation, reward);
+            if (segment.written.incrementAndGet() == recordsPerSegment) {
+                release(segmentNumber, segment);
+            }
+        } finally {
+            appending.decrement();
+        }
+    }
+
+    private void write(MappedByteBuffer buffer, int offset, String version, Long seed, double bettingAmount,
+                       byte[] board, int columns, SpinEvaluation evaluation, double reward) {
+        // Step 1: The fixed fields
+        buffer.putLong(offset + JournalLayout.VERSION_OFFSET, version != null ? versionBits(version) : 0L);
+        buffer.putLong(offset + JournalLayout.SEED_OFFSET, seed != null ? seed : 0L);
+        buffer.putDouble(offset + JournalLayout.BET_OFFSET, bettingAmount);
+        buffer.putDouble(offset + JournalLayout.REWARD_OFFSET, reward);
+        buffer.put(offset + JournalLayout.FLAGS_OFFSET, (byte) ((seed != null ? JournalLayout.FLAG_SEEDED : 0)
+                | (version != null ? JournalLayout.FLAG_VERSIONED : 0)));
+        buffer.put(offset + JournalLayout.ROWS_OFFSET, (byte) (columns == 0 ? 0 : board.length / columns));
+        buffer.put(offset + JournalLayout.COLUMNS_OFFSET, (byte) columns);
+
+        // Step 2: The board, packed; the file starts out zeroed, so unused bits need no writing
+        int symbolBits = layout.symbolBits();
+        int position = offset + JournalLayout.BOARD_OFFSET;
+        int bits = 0;
+        int pending = 0;
+        for (byte cell : board) {
+            bits |= cell << pending;
+            pending += symbolBits;
+            if (pending >= 8) {
+                buffer.put(position++, (byte) bits);
+                bits >>>= 8;
+                pending -= 8;
+            }
+        }
+        if (pending > 0) {
+            buffer.put(position, (byte) bits);
+        }
+
+        // Step 3: The bitmasks
+        if (evaluation.isWinning()) {
+            int combinations = offset + layout.combinationsOffset();
+            for (int combination = 0; combination < evaluation.plan().combinationCount(); combination++) {
+                if (appliesToAny(evaluation, combination)) {
+                    int word = combinations + 8 * (combination >>> 6);
+                    buffer.putLong(word, buffer.getLong(word) | 1L << combination);
+                }
+            }
+            SymbolTable symbols = evaluation.plan().symbols();
+            int bonus = offset + layout.bonusOffset();
+            for (byte cell : board) {
+                if (symbols.isReportedBonus(cell)) {
+                    int word = bonus + 8 * (cell >>> 6);
+                    buffer.putLong(word, buffer.getLong(word) | 1L << cell);
+                }
+            }
+        }
+
+        // Step 4: Commit the record
+        LONGS.setRelease(buffer, offset + JournalLayout.TIMESTAMP_OFFSET, System.currentTimeMillis());
+    }
+
+    /**
+     * @return Whether the combination applies to at least one symbol of the evaluation.
+     */
+    static boolean appliesToAny(SpinEvaluation evaluation, int combination) {
+        int symbolCount = evaluation.plan().symbols().size();
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            if (evaluation.hits(symbol, combination) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The 16 hex digits of a configuration version as a number.
+     * @throws IllegalArgumentException If the version is not 16 hex digits.
+     */
+    public static long versionBits(String version) {
+        if (version.length() != 16) {
+            throw new IllegalArgumentException("Config version " + version + " is not 16 hex digits");
+        }
+        try {
+            return Long.parseUnsignedLong(version, 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Config version " + version + " is not 16 hex digits");
+        }
+    }
+
+    private Segment createSegment(long number) {
+        Path file = directory.resolve(segmentName(number));
+        long size = JournalLayout.HEADER_BYTES + (long) recordsPerSegment * layout.recordSize();
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            layout.writeHeader(buffer, recordsPerSegment, number, System.currentTimeMillis());
+            return new Segment(channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + file, e);
+        }
+    }
+
+    private void release(long number, Segment segment) {
+        segments.remove(number);
+        segment.buffer.force();
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close journal segment " + segmentName(number), e);
+        }
+    }
+
+    static String segmentName(long number) {
+        return String.format("segment-%08d.journal", number);
+    }
+
+    public JournalLayout layout() { return layout; }
+
+    /**
+     * This method stops accepting spins, waits for the ones being written, forces everything to disk and
+     * truncates the last segment after its last record.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        while (appending.sum() > 0) {
+            Thread.onSpinWait();
+        }
+        long records = nextRecord.get();
+        for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+            Segment segment = entry.getValue();
+            segment.buffer.force();
+            long used = records - (entry.getKey() - firstSegment) * recordsPerSegment;
+            if (used < recordsPerSegment) {
+                segment.channel.truncate(JournalLayout.HEADER_BYTES + used * layout.recordSize());
+            }
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+}
@@ -0,0 +1,74 @@
+package com.game.journal;
+
+import com.game.models.GameConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The spin journals of every configuration a process plays, one subdirectory per config version.
+ * <p>
+ * Each journal is opened on the first engine of its version, with records sized for that configuration by
+ * {@link JournalLayout#forConfig(GameConfig)}, so game variants and reloaded configurations of any board
+ * size share the journal directory without sharing a layout.
+ */
+public final class SpinJournals implements Closeable {
+    static final String UNVERSIONED = "unversioned";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Map<String, SpinJournal> journals = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory The directory of the journal subdirectories, created if needed.
+     * @param segmentBytes The size of each segment file, header included.
+     */
+    public SpinJournals(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * This method names the journal directory of a config version.
+     *
+     * @param directory The directory of the journal subdirectories.
+     * @param version The version of the configuration, or {@code null}.
+     * @return The directory of the segment files of that version.
+     */
+    public static Path directoryOf(Path directory, String version) {
+        return directory.resolve(version != null ? version : UNVERSIONED);
+    }
+
+    /**
+     * This method returns the journal of a configuration, opening it on first use.
+     *
+     * @param config The game configuration.
+     * @param version The version of the configuration, or {@code null}.
+     * @return The journal every engine of that version appends to.
+     * @throws UncheckedIOException If the journal cannot be opened.
+     */
+    public SpinJournal forConfig(GameConfig config, String version) {
+        return journals.computeIfAbsent(version != null ? version : UNVERSIONED, name -> {
+            try {
+                return SpinJournal.open(directoryOf(directory, version), JournalLayout.forConfig(config), segmentBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open spin journal " + directoryOf(directory, version), e);
+            }
+        });
+    }
+
+    /**
+     * This method closes every journal opened.
+     */
+    @Override
+    public void close() throws IOException {
+        for (SpinJournal journal : journals.values()) {
+            journal.close();
+        }
+        journals.clear();
+    }
+}
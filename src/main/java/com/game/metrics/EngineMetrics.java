@@ -0,0 +1,186 @@
+package com.game.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the spins played by one engine.
+ * <p>
+ * Every counter is a striped adder and every histogram is lock-free, so any number of threads can record
+ * at once without contending. An engine without metrics never creates an instance and pays nothing.
+ */
+public final class EngineMetrics implements EngineMetricsMXBean {
+    public static final String OBJECT_NAME = "com.game:type=EngineMetrics";
+
+    /**
+     * The phases of a spin, timed separately.
+     */
+    public enum Phase {
+        GENERATION, CHECKING, REWARD, BONUS;
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final String[] combinationNames;
+    private final String[] bonusSymbolNames;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Phase.values().length];
+    private final LongAdder spins = new LongAdder();
+    private final LongAdder winningSpins = new LongAdder();
+    private final DoubleAdder wagered = new DoubleAdder();
+    private final DoubleAdder paid = new DoubleAdder();
+    private final LongAdder[] combinationWins;
+    private final LongAdder[] bonusSymbolHits;
+
+    /**
+     * @param combinationNames The win combination names, indexed by combination.
+     * @param bonusSymbolNames The bonus symbol names indexed by symbol ID, {@code null} for other symbols.
+     */
+    public EngineMetrics(String[] combinationNames, String[] bonusSymbolNames) {
+        this.combinationNames = combinationNames.clone();
+        this.bonusSymbolNames = bonusSymbolNames.clone();
+        this.combinationWins = adders(combinationNames.length);
+        this.bonusSymbolHits = adders(bonusSymbolNames.length);
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordLatency(Phase phase, long nanos) {
+        latencies[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * This method records the bet and reward of one spin.
+     *
+     * @param bettingAmount The amount bet on the spin.
+     * @param reward The reward paid for the spin.
+     * @param winning Whether the spin hit any win combination.
+     */
+    public void recordSpin(double bettingAmount, double reward, boolean winning) {
+        spins.increment();
+        wagered.add(bettingAmount);
+        if (winning) {
+            winningSpins.increment();
+            paid.add(reward);
+        }
+    }
+
+    public void recordCombinationWins(int combination, int hits) {
+        combinationWins[combination].add(hits);
+    }
+
+    public void recordBonusSymbol(int symbol) {
+        bonusSymbolHits[symbol].increment();
+    }
+
+    @Override
+    public long getSpins() { return spins.sum(); }
+    @Override
+    public long getWinningSpins() { return winningSpins.sum(); }
+    @Override
+    public double getTotalWagered() { return wagered.sum(); }
+    @Override
+    public double getTotalPaid() { return paid.sum(); }
+
+    @Override
+    public double getRtp() {
+        double totalWagered = wagered.sum();
+        return totalWagered > 0 ? paid.sum() / totalWagered : 0.0;
+    }
+
+    @Override
+    public Map<String, Long> getCombinationWins() {
+        Map<String, Long> wins = new LinkedHashMap<>();
+        for (int i = 0; i < combinationNames.length; i++) {
+            wins.put(combinationNames[i], combinationWins[i].sum());
+        }
+        return wins;
+    }
+
+    @Override
+    public Map<String, Long> getBonusSymbolHits() {
+        Map<String, Long> hits = new LinkedHashMap<>();
+        for (int i = 0; i < bonusSymbolNames.length; i++) {
+            if (bonusSymbolNames[i] != null) {
+                hits.put(bonusSymbolNames[i], bonusSymbolHits[i].sum());
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getPhaseLatencies() {
+        Map<String, LatencySnapshot> snapshots = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            snapshots.put(phase.key, latencies[phase.ordinal()].snapshot());
+        }
+        return snapshots;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram latency : latencies) {
+            latency.reset();
+        }
+        for (LongAdder adder : new LongAdder[]{spins, winningSpins}) {
+            adder.reset();
+        }
+        wagered.reset();
+        paid.reset();
+        for (LongAdder adder : combinationWins) {
+            adder.reset();
+        }
+        for (LongAdder adder : bonusSymbolHits) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * This method publishes these metrics on the platform MBean server under {@link #OBJECT_NAME},
+     * replacing any metrics published there before.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot publish the engine metrics", e);
+        }
+    }
+
+    /**
+     * This method removes the metrics published under {@link #OBJECT_NAME}, if any.
+     */
+    public static void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // Nothing was published
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot remove the engine metrics", e);
+        }
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
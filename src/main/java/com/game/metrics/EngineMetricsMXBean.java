@@ -0,0 +1,38 @@
+package com.game.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link EngineMetrics}, as published over JMX.
+ */
+public interface EngineMetricsMXBean {
+    long getSpins();
+    long getWinningSpins();
+    double getTotalWagered();
+    double getTotalPaid();
+
+    /**
+     * @return The total paid divided by the total wagered, or 0 before the first spin.
+     */
+    double getRtp();
+
+    /**
+     * @return The number of times each win combination was hit, by combination name.
+     */
+    Map<String, Long> getCombinationWins();
+
+    /**
+     * @return The number of times each bonus symbol landed on a board, by symbol name.
+     */
+    Map<String, Long> getBonusSymbolHits();
+
+    /**
+     * @return The latency of each phase of a spin: generation, checking, reward and bonus.
+     */
+    Map<String, LatencySnapshot> getPhaseLatencies();
+
+    /**
+     * This method sets every counter and histogram back to zero.
+     */
+    void reset();
+}
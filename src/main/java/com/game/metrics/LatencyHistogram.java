@@ -0,0 +1,91 @@
+package com.game.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, in the log-linear layout of HdrHistogram.
+ * <p>
+ * Values below {@code 2^SUB_BUCKET_BITS} each get their own bucket. Above that, every power of two is cut
+ * into {@code 2^SUB_BUCKET_BITS} equal buckets, so a recorded value is never off by more than 1/128 of
+ * itself, from nanoseconds up to hours, in a fixed 58 KiB. Recording is one atomic increment and never
+ * allocates; concurrent recorders only contend when they hit the same bucket at the same time.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * This method records one duration.
+     *
+     * @param nanos The duration in nanoseconds; negative durations count as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * This method summarizes the durations recorded so far. Durations recorded while the summary is taken
+     * may or may not be included.
+     *
+     * @return The count, mean, percentiles and maximum of the durations.
+     */
+    public LatencySnapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long highest = max.get();
+        return new LatencySnapshot(count, count == 0 ? 0.0 : (double) total.sum() / count,
+                percentile(snapshot, count, 0.50, highest), percentile(snapshot, count, 0.90, highest),
+                percentile(snapshot, count, 0.99, highest), percentile(snapshot, count, 0.999, highest), highest);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * @return The highest value of the bucket the given share of the durations is at or below.
+     */
+    private static long percentile(long[] counts, long count, double quantile, long highest) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), highest);
+            }
+        }
+        return highest;
+    }
+
+    static int bucket(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long highestInBucket(int bucket) {
+        int shift = Math.max(0, bucket / SUB_BUCKETS - 1);
+        long lowest = (long) (bucket - shift * SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
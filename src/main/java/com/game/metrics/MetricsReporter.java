@@ -0,0 +1,77 @@
+package com.game.metrics;
+
+import com.game.utils.JsonUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Prints the engine metrics as one line of JSON at a fixed interval, and once more when closed.
+ */
+public final class MetricsReporter implements Closeable {
+    private final Supplier<EngineMetrics> metrics;
+    private final PrintStream out;
+    private final ScheduledExecutorService scheduler;
+
+    private MetricsReporter(Supplier<EngineMetrics> metrics, PrintStream out) {
+        this.metrics = metrics;
+        this.out = out;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * This method starts reporting on a daemon thread, once the reporter is fully constructed.
+     *
+     * @param metrics Supplies the metrics to report, those of the current engine.
+     * @param interval The time between two reports.
+     * @param out Where to print the reports, typically standard error.
+     * @return The reporter, which prints a last report when closed.
+     */
+    public static MetricsReporter start(Supplier<EngineMetrics> metrics, Duration interval, PrintStream out) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("The metrics interval must be positive");
+        }
+        MetricsReporter reporter = new MetricsReporter(metrics, out);
+        reporter.scheduler.scheduleAtFixedRate(reporter::report, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        return reporter;
+    }
+
+    public void report() {
+        EngineMetrics metrics = this.metrics.get();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("time", Instant.now().toString());
+        report.put("spins", metrics.getSpins());
+        report.put("winning_spins", metrics.getWinningSpins());
+        report.put("total_wagered", metrics.getTotalWagered());
+        report.put("total_paid", metrics.getTotalPaid());
+        report.put("rtp", metrics.getRtp());
+        report.put("combination_wins", metrics.getCombinationWins());
+        report.put("bonus_symbol_hits", metrics.getBonusSymbolHits());
+        report.put("phase_latencies", metrics.getPhaseLatencies());
+        try {
+            out.println(JsonUtils.toJson(report));
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report();
+    }
+}
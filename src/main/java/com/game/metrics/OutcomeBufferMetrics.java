@@ -0,0 +1,117 @@
+package com.game.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and occupancy of a buffer of pre-generated outcomes.
+ * <p>
+ * Producers and spins count into striped adders. The lowest occupancy is only written when a spin leaves
+ * fewer outcomes waiting than any spin before it, which a buffer that keeps up rarely does.
+ */
+public final class OutcomeBufferMetrics implements OutcomeBufferMetricsMXBean {
+    public static final String OBJECT_NAME = "com.game:type=OutcomeBuffer";
+
+    private final long capacity;
+    private final LongSupplier occupancy;
+    private final String drainPolicy;
+    private final AtomicLong lowestOccupancy;
+    private final LongAdder produced = new LongAdder();
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder drained = new LongAdder();
+
+    /**
+     * @param capacity The number of slots of the buffer.
+     * @param occupancy Reads the number of outcomes waiting in the buffer.
+     * @param drainPolicy What a spin does when it finds the buffer empty.
+     */
+    public OutcomeBufferMetrics(long capacity, LongSupplier occupancy, String drainPolicy) {
+        this.capacity = capacity;
+        this.occupancy = occupancy;
+        this.drainPolicy = drainPolicy;
+        this.lowestOccupancy = new AtomicLong(capacity);
+    }
+
+    public void recordProduced() {
+        produced.increment();
+    }
+
+    /**
+     * This method records a spin that claimed an outcome.
+     *
+     * @param left The number of outcomes the spin left waiting.
+     */
+    public void recordClaimed(long left) {
+        claimed.increment();
+        long lowest;
+        while (left < (lowest = lowestOccupancy.get()) && !lowestOccupancy.compareAndSet(lowest, left)) {
+            // Another spin lowered it at the same time; compare again
+        }
+    }
+
+    public void recordDrained() {
+        drained.increment();
+    }
+
+    @Override
+    public long getCapacity() { return capacity; }
+    @Override
+    public long getOccupancy() { return occupancy.getAsLong(); }
+    @Override
+    public long getLowestOccupancy() { return lowestOccupancy.get(); }
+    @Override
+    public long getProduced() { return produced.sum(); }
+    @Override
+    public long getClaimed() { return claimed.sum(); }
+    @Override
+    public long getDrained() { return drained.sum(); }
+    @Override
+    public String getDrainPolicy() { return drainPolicy; }
+
+    @Override
+    public void reset() {
+        produced.reset();
+        claimed.reset();
+        drained.reset();
+        lowestOccupancy.set(occupancy.getAsLong());
+    }
+
+    /**
+     * This method publishes these metrics on the platform MBean server under {@link #OBJECT_NAME},
+     * replacing any metrics published there before.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot publish the outcome buffer metrics", e);
+        }
+    }
+
+    /**
+     * This method removes the metrics published under {@link #OBJECT_NAME}, if any.
+     */
+    public static void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // Nothing was published
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot remove the outcome buffer metrics", e);
+        }
+    }
+}
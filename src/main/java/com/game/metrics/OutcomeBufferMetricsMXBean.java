@@ -0,0 +1,40 @@
+package com.game.metrics;
+
+/**
+ * The management interface of {@link OutcomeBufferMetrics}, as published over JMX.
+ */
+public interface OutcomeBufferMetricsMXBean {
+
+    /**
+     * @return The number of slots of the buffer, over all producers.
+     */
+    long getCapacity();
+
+    /**
+     * @return The number of outcomes waiting in the buffer now.
+     */
+    long getOccupancy();
+
+    /**
+     * @return The fewest outcomes a spin has left waiting in the buffer since the last reset.
+     */
+    long getLowestOccupancy();
+
+    long getProduced();
+    long getClaimed();
+
+    /**
+     * @return The number of spins that found the buffer empty.
+     */
+    long getDrained();
+
+    /**
+     * @return What a spin does when it finds the buffer empty: BLOCK, FALLBACK or FAIL.
+     */
+    String getDrainPolicy();
+
+    /**
+     * This method sets the counters back to zero and the lowest occupancy back to the current one.
+     */
+    void reset();
+}
@@ -0,0 +1,56 @@
+package com.game.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+public class AnalysisResult {
+    private final double bettingAmount;
+    private final double expectedReward;
+    private final double rtp;
+    private final double hitRate;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Double rewardVariance;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Double maxReward;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<Payout> distribution;
+
+    public AnalysisResult(double bettingAmount, double expectedReward, double rtp, double hitRate,
+                          Double rewardVariance, Double maxReward, List<Payout> distribution) {
+        this.bettingAmount = bettingAmount;
+        this.expectedReward = expectedReward;
+        this.rtp = rtp;
+        this.hitRate = hitRate;
+        this.rewardVariance = rewardVariance;
+        this.maxReward = maxReward;
+        this.distribution = distribution;
+    }
+
+    // Getters
+    public double getBettingAmount() { return bettingAmount; }
+    public double getExpectedReward() { return expectedReward; }
+    public double getRtp() { return rtp; }
+    public double getHitRate() { return hitRate; }
+    public Double getRewardVariance() { return rewardVariance; }
+    public Double getMaxReward() { return maxReward; }
+
+    /**
+     * @return Every possible reward with its probability, in increasing reward order, or {@code null}
+     *         when the board was too large to compute it.
+     */
+    public List<Payout> getDistribution() { return distribution; }
+
+    public static class Payout {
+        private final double reward;
+        private final double probability;
+
+        public Payout(double reward, double probability) {
+            this.reward = reward;
+            this.probability = probability;
+        }
+
+        public double getReward() { return reward; }
+        public double getProbability() { return probability; }
+    }
+}
@@ -1,14 +1,27 @@
 package com.game.models;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class GameResult {
     private String[][] matrix;
     private double reward;
     private Map<String, List<String>> appliedWinningCombinations;
     private String appliedBonusSymbol;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long seed;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String configVersion;
+
+    // Compact board the matrix is built from on first access
+    private byte[] board;
+    private int columns;
+    private String[] symbolNames;
+    private Supplier<Map<String, List<String>>> combinationsSource;
 
     public GameResult(String[][] matrix, double reward,
                       Map<String, List<String>> appliedWinningCombinations,
@@ -19,9 +32,76 @@ public class GameResult {
         this.appliedBonusSymbol = appliedBonusSymbol;
     }
 
+    /**
+     * Creates a result for a board of symbol IDs. The {@code String[][]} matrix and the winning combinations
+     * map are only built when they are first requested, typically when the result is serialized.
+     *
+     * @param board The board, one symbol ID per cell in row-major order.
+     * @param columns The number of columns of the board.
+     * @param symbolNames The symbol names indexed by ID.
+     * @param appliedWinningCombinations Builds the winning combinations map on demand.
+     * @param seed The seed the spin was played from, or {@code null} when it was not seeded.
+     * @param configVersion The version of the configuration the spin was played on, or {@code null}.
+     */
+    public GameResult(byte[] board, int columns, String[] symbolNames, double reward,
+                      Supplier<Map<String, List<String>>> appliedWinningCombinations,
+                      String appliedBonusSymbol, Long seed, String configVersion) {
+        this(null, reward, null, appliedBonusSymbol);
+        this.seed = seed;
+        this.configVersion = configVersion;
+        this.board = board;
+        this.columns = columns;
+        this.symbolNames = symbolNames;
+        this.combinationsSource = appliedWinningCombinations;
+    }
+
     // Getters
-    public String[][] getMatrix() { return matrix; }
+    public String[][] getMatrix() {
+        if (matrix == null && board != null) {
+            int rows = columns == 0 ? 0 : board.length / columns;
+            String[][] built = new String[rows][columns];
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++) {
+                    built[row][col] = symbolNames[board[row * columns + col]];
+                }
+            }
+            matrix = built;
+        }
+        return matrix;
+    }
     public double getReward() { return reward; }
-    public Map<String, List<String>> getAppliedWinningCombinations() { return appliedWinningCombinations; }
+    public Map<String, List<String>> getAppliedWinningCombinations() {
+        if (appliedWinningCombinations == null && combinationsSource != null) {
+            appliedWinningCombinations = combinationsSource.get();
+        }
+        return appliedWinningCombinations;
+    }
     public String getAppliedBonusSymbol() { return appliedBonusSymbol; }
-}
\ No newline at end of file
+
+    /**
+     * @return The board the result was played on, one symbol ID per cell, or {@code null} for results
+     *         created from a matrix. Not part of the JSON form.
+     */
+    public byte[] board() { return board; }
+
+    /**
+     * @return The number of columns of {@link #board()}. Not part of the JSON form.
+     */
+    public int columns() { return columns; }
+
+    /**
+     * @return What builds the winning combinations map on demand, or {@code null} for results created
+     *         from a matrix. Not part of the JSON form.
+     */
+    public Supplier<Map<String, List<String>>> combinationsSource() { return combinationsSource; }
+
+    /**
+     * @return The seed that replays this spin with the same configuration and bet, or {@code null}.
+     */
+    public Long getSeed() { return seed; }
+
+    /**
+     * @return The version of the configuration the spin was played on, or {@code null}.
+     */
+    public String getConfigVersion() { return configVersion; }
+}
@@ -0,0 +1,12 @@
+package com.game.models;
+
+public class PlayRequest {
+    private double bettingAmount;
+    private long spins = 1;
+
+    // Getters and setters
+    public double getBettingAmount() { return bettingAmount; }
+    public void setBettingAmount(double bettingAmount) { this.bettingAmount = bettingAmount; }
+    public long getSpins() { return spins; }
+    public void setSpins(long spins) { this.spins = spins; }
+}
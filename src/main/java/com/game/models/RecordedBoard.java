@@ -0,0 +1,25 @@
+package com.game.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A board to score, as recorded outside the game: a line the game printed for a spin, or one written by
+ * another system. Every field but the matrix is optional, and fields the game does not read are ignored.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RecordedBoard {
+    private String[][] matrix;
+    private Double bettingAmount;
+    private Double reward;
+    private Long seed;
+
+    // Getters and setters
+    public String[][] getMatrix() { return matrix; }
+    public void setMatrix(String[][] matrix) { this.matrix = matrix; }
+    public Double getBettingAmount() { return bettingAmount; }
+    public void setBettingAmount(Double bettingAmount) { this.bettingAmount = bettingAmount; }
+    public Double getReward() { return reward; }
+    public void setReward(Double reward) { this.reward = reward; }
+    public Long getSeed() { return seed; }
+    public void setSeed(Long seed) { this.seed = seed; }
+}
@@ -0,0 +1,46 @@
+package com.game.models;
+
+import java.util.Map;
+
+public class SimulationResult {
+    private final long seed;
+    private final long spins;
+    private final double bettingAmount;
+    private final double totalBet;
+    private final double totalReward;
+    private final double rtp;
+    private final double hitFrequency;
+    private final double rewardVariance;
+    private final double maxReward;
+    private final Map<String, Long> combinationHits;
+    private final Map<String, Long> bonusSymbolHits;
+
+    public SimulationResult(long seed, long spins, double bettingAmount, double totalBet, double totalReward,
+                            double rtp, double hitFrequency, double rewardVariance, double maxReward,
+                            Map<String, Long> combinationHits, Map<String, Long> bonusSymbolHits) {
+        this.seed = seed;
+        this.spins = spins;
+        this.bettingAmount = bettingAmount;
+        this.totalBet = totalBet;
+        this.totalReward = totalReward;
+        this.rtp = rtp;
+        this.hitFrequency = hitFrequency;
+        this.rewardVariance = rewardVariance;
+        this.maxReward = maxReward;
+        this.combinationHits = combinationHits;
+        this.bonusSymbolHits = bonusSymbolHits;
+    }
+
+    // Getters
+    public long getSeed() { return seed; }
+    public long getSpins() { return spins; }
+    public double getBettingAmount() { return bettingAmount; }
+    public double getTotalBet() { return totalBet; }
+    public double getTotalReward() { return totalReward; }
+    public double getRtp() { return rtp; }
+    public double getHitFrequency() { return hitFrequency; }
+    public double getRewardVariance() { return rewardVariance; }
+    public double getMaxReward() { return maxReward; }
+    public Map<String, Long> getCombinationHits() { return combinationHits; }
+    public Map<String, Long> getBonusSymbolHits() { return bonusSymbolHits; }
+}
@@ -1,5 +1,6 @@
 package com.game.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class WinCombination {
@@ -9,6 +10,8 @@ public class WinCombination {
     private int count;
     private String group;
     private String[][] covered_areas;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String[] generate;
 
     // Getters and setters
     public double getRewardMultiplier() { return reward_multiplier; }
@@ -21,4 +24,11 @@ public class WinCombination {
     public void setGroup(String group) { this.group = group; }
     public String[][] getCoveredAreas() { return covered_areas; }
     public void setCoveredAreas(String[][] covered_areas) { this.covered_areas = covered_areas; }
+
+    /**
+     * @return The families of lines to generate as covered areas, after any listed in covered_areas:
+     *         {@code rows}, {@code columns}, {@code diagonals} or {@code zigzags}; or {@code null}.
+     */
+    public String[] getGenerate() { return generate; }
+    public void setGenerate(String[] generate) { this.generate = generate; }
 }
\ No newline at end of file
@@ -0,0 +1,270 @@
+package com.game.server;
+
+import com.game.models.GameResult;
+import com.game.models.PlayRequest;
+import com.game.services.GameEngine;
+import com.game.services.OutcomePregenerator;
+import com.game.utils.EngineRegistry;
+import com.game.utils.JsonUtils;
+import com.game.utils.NdjsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A long-running HTTP server that plays spins on shared, precompiled {@link GameEngine}s.
+ * <p>
+ * Every request runs on its own virtual thread. Spins draw from the thread's own random source, so
+ * concurrent requests never contend on the engine. At most {@code maxConcurrentRequests} requests are
+ * served at a time; the others are turned away at once with {@code 503 Service Unavailable} rather than
+ * queued, and batches are limited to {@code maxBatchSize} spins. A spin that finds an engine's
+ * pre-generated outcomes drained, when its policy is to fail, is answered with a 503 as well.
+ * <p>
+ * Batches are streamed from platform threads instead. The JDK server writes responses while holding a
+ * monitor, which pins a virtual thread to its carrier for as long as a slow client takes to read, and a
+ * few slow batch clients would otherwise stall every other request.
+ * <ul>
+ *   <li>{@code POST /play} with {@code {"betting_amount": 100}} returns one result, exactly as the CLI
+ *       prints it.</li>
+ *   <li>{@code POST /play/batch} with {@code {"betting_amount": 100, "spins": 1000}} streams the results
+ *       as newline-delimited JSON.</li>
+ *   <li>{@code POST /games/<id>/play} and {@code POST /games/<id>/play/batch} do the same for one of
+ *       the game variants of an {@link EngineRegistry}.</li>
+ * </ul>
+ * Every request reads the current engine once, so a configuration reloaded meanwhile only applies to
+ * later requests, and a batch is played on a single configuration. Every spin is played from its own
+ * seed and its result carries the seed and the config version, so that any spin can be replayed later.
+ */
+public class GameServer {
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final Supplier<GameEngine> engines;
+    private final EngineRegistry games;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ExecutorService streamingExecutor;
+    private final Semaphore permits;
+    private final long maxBatchSize;
+
+    /**
+     * This method creates the server, without starting it.
+     *
+     * @param engines Supplies the engine of the current configuration, which should seed its spins.
+     * @param address The address to listen on.
+     * @param maxConcurrentRequests The number of requests served at the same time.
+     * @param maxBatchSize The largest number of spins in one batch.
+     */
+    public GameServer(Supplier<GameEngine> engines, InetSocketAddress address, int maxConcurrentRequests,
+                      long maxBatchSize) throws IOException {
+        this(engines, null, address, maxConcurrentRequests, maxBatchSize);
+    }
+
+    /**
+     * This method creates a server for a default game, game variants, or both, without starting it.
+     *
+     * @param engines Supplies the engine of the default game served under {@code /play}, or {@code null}.
+     * @param games The game variants served under {@code /games/<id>}, or {@code null}.
+     * @param address The address to listen on.
+     * @param maxConcurrentRequests The number of requests served at the same time.
+     * @param maxBatchSize The largest number of spins in one batch.
+     */
+    public GameServer(Supplier<GameEngine> engines, EngineRegistry games, InetSocketAddress address,
+                      int maxConcurrentRequests, long maxBatchSize) throws IOException {
+        if (maxConcurrentRequests < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Request and batch limits must be positive");
+        }
+        if (engines == null && games == null) {
+            throw new IllegalArgumentException("Nothing to serve");
+        }
+        this.engines = engines;
+        this.games = games;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.maxBatchSize = maxBatchSize;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.streamingExecutor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        if (engines != null) {
+            server.createContext("/play", limited(path -> path.equals("/play") ? new Route(null, this::play) : null));
+            server.createContext("/play/batch",
+                    limited(path -> path.equals("/play/batch") ? new Route(null, this::playBatch) : null));
+        }
+        if (games != null) {
+            server.createContext("/games/", limited(this::routeGame));
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return The port the server listens on, useful when it was created with port 0.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * This method stops accepting connections, then lets the requests in progress finish.
+     *
+     * @param grace How long to wait for requests in progress before closing their connections.
+     */
+    public void stop(Duration grace) throws InterruptedException {
+        server.stop((int) Math.max(0, grace.toSeconds()));
+        for (ExecutorService pool : new ExecutorService[]{executor, streamingExecutor}) {
+            pool.shutdown();
+            if (!pool.awaitTermination(grace.toMillis(), TimeUnit.MILLISECONDS)) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private void play(HttpExchange exchange, GameEngine engine, PlayRequest request) throws IOException {
+        GameResult result;
+        try {
+            result = engine.play(request.getBettingAmount());
+        } catch (OutcomePregenerator.DrainedException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 503, e.getMessage());
+            return;
+        }
+        byte[] body = JsonUtils.toJsonBytes(result);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void playBatch(HttpExchange exchange, GameEngine engine, PlayRequest request) throws IOException {
+        if (request.getSpins() < 1 || request.getSpins() > maxBatchSize) {
+            sendError(exchange, 400, "spins must be between 1 and " + maxBatchSize);
+            return;
+        }
+        // Chunked, so results leave as they are played
+        exchange.getResponseHeaders().set("Content-Type", NDJSON);
+        exchange.sendResponseHeaders(200, 0);
+        Future<?> streaming = streamingExecutor.submit(() -> {
+            try (NdjsonWriter writer = JsonUtils.ndjsonWriter(exchange.getResponseBody(), true)) {
+                engine.playBatch(request.getBettingAmount(), request.getSpins(), writer);
+            }
+            return null;
+        });
+        try {
+            streaming.get();
+        } catch (InterruptedException e) {
+            streaming.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    private interface PlayHandler {
+        void handle(HttpExchange exchange, GameEngine engine, PlayRequest request) throws IOException;
+    }
+
+    /**
+     * Where a request path leads: the game variant, {@code null} for the default game, and the handler.
+     */
+    private record Route(String game, PlayHandler handler) {
+    }
+
+    /**
+     * This method routes {@code /games/<id>/play} and {@code /games/<id>/play/batch}.
+     */
+    private Route routeGame(String path) {
+        String[] parts = path.split("/", -1);
+        if (parts.length < 4 || !parts[1].equals("games") || parts[2].isEmpty() || !parts[3].equals("play")) {
+            return null;
+        }
+        if (parts.length == 4) {
+            return new Route(parts[2], this::play);
+        }
+        return parts.length == 5 && parts[4].equals("batch") ? new Route(parts[2], this::playBatch) : null;
+    }
+
+    /**
+     * This method wraps the routes of a context with the checks every endpoint shares: a known path, POST
+     * only, the concurrency limit, a known game and a valid request body.
+     */
+    private HttpHandler limited(Function<String, Route> router) {
+        return exchange -> {
+            try (exchange) {
+                Route route = router.apply(exchange.getRequestURI().getPath());
+                if (route == null) {
+                    sendError(exchange, 404, "Not found");
+                    return;
+                }
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    sendError(exchange, 405, "Method not allowed");
+                    return;
+                }
+                if (!permits.tryAcquire()) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendError(exchange, 503, "Too many requests in progress");
+                    return;
+                }
+                try {
+                    // Variants compile on first use, so look them up within the concurrency limit
+                    GameEngine engine;
+                    try {
+                        engine = route.game() == null ? engines.get() : games.get(route.game());
+                    } catch (IOException | IllegalArgumentException e) {
+                        sendError(exchange, 500, "Cannot load game " + route.game() + ": " + e.getMessage());
+                        return;
+                    }
+                    if (engine == null) {
+                        sendError(exchange, 404, "Unknown game: " + route.game());
+                        return;
+                    }
+
+                    PlayRequest request;
+                    try (InputStream in = exchange.getRequestBody()) {
+                        request = JsonUtils.fromJson(in, PlayRequest.class);
+                    } catch (IOException e) {
+                        sendError(exchange, 400, "Invalid request body: " + e.getMessage());
+                        return;
+                    }
+                    if (!(request.getBettingAmount() > 0)) {
+                        sendError(exchange, 400, "betting_amount must be positive");
+                        return;
+                    }
+                    route.handler().handle(exchange, engine, request);
+                } finally {
+                    permits.release();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error: " + e.getMessage());
+            }
+        };
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = JsonUtils.toJson(Map.of("error", message)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.game.services;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.random.RandomGenerator;
+
+/**
+ * Walker/Vose alias table over a fixed set of integer weights.
+ * <p>
+ * The table is built in exact integer arithmetic: every column holds {@code total} units, so outcome
+ * {@code i} is returned with probability {@code weights[i] / total} exactly, as long as the random
+ * source is uniform. Sampling is constant time and does not allocate.
+ */
+public final class AliasTable {
+    private final int[] outcomes;
+    private final long[] threshold;
+    private final int[] alias;
+    private final long total;
+
+    /**
+     * Builds an alias table.
+     *
+     * @param outcomes The values returned by {@link #sample(RandomGenerator)}, in config order.
+     * @param weights The non-negative weight of each outcome.
+     */
+    public AliasTable(int[] outcomes, int[] weights) {
+        if (outcomes.length == 0 || outcomes.length != weights.length) {
+            throw new IllegalArgumentException("Alias table needs one weight per outcome");
+        }
+        int n = outcomes.length;
+        this.outcomes = outcomes.clone();
+        this.threshold = new long[n];
+        this.alias = new int[n];
+
+        long sum = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Symbol weights must not be negative");
+            }
+            sum += weight;
+        }
+        this.total = sum;
+
+        // Step 1: A table with no weight at all always yields its first outcome
+        if (sum == 0) {
+            return;
+        }
+
+        // Step 2: Scale every weight by n so that each column has exactly `sum` units to fill
+        long[] scaled = new long[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (long) weights[i] * n;
+            if (scaled[i] < sum) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+
+        // Step 3: Pair each under-full column with an over-full one (Vose)
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            threshold[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] -= sum - scaled[less];
+            if (scaled[more] < sum) {
+                small.push(more);
+            } else {
+                large.push(more);
+            }
+        }
+
+        // Step 4: Whatever is left is exactly full
+        while (!large.isEmpty()) {
+            int i = large.pop();
+            threshold[i] = sum;
+            alias[i] = i;
+        }
+        while (!small.isEmpty()) {
+            int i = small.pop();
+            threshold[i] = sum;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * Draws one outcome.
+     *
+     * @param random The random source to draw from.
+     * @return One of the outcomes, distributed according to the weights.
+     */
+    public int sample(RandomGenerator random) {
+        int n = outcomes.length;
+        if (total == 0) {
+            return outcomes[0];
+        }
+        int column = n == 1 ? 0 : random.nextInt(n);
+        long unit = random.nextLong(total);
+        return unit < threshold[column] ? outcomes[column] : outcomes[alias[column]];
+    }
+
+    /**
+     * @return The exact probability of drawing the outcome at the given position, for diagnostics and analysis.
+     */
+    public double probability(int index) {
+        if (total == 0) {
+            return index == 0 ? 1.0 : 0.0;
+        }
+        long units = 0;
+        int n = outcomes.length;
+        for (int column = 0; column < n; column++) {
+            if (column == index) {
+                units += threshold[column];
+            }
+            if (alias[column] == index) {
+                units += total - threshold[column];
+            }
+        }
+        return (double) units / ((double) total * n);
+    }
+
+    public int size() { return outcomes.length; }
+    public int outcome(int index) { return outcomes[index]; }
+
+    /**
+     * @return The approximate heap footprint of the table: an int, a long and an int per outcome.
+     */
+    long estimatedBytes() { return 96 + 16L * outcomes.length; }
+}
@@ -0,0 +1,122 @@
+package com.game.services;
+
+import com.game.models.GameConfig;
+import com.game.models.Symbol;
+import com.game.models.WinCombination;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the structure of a configuration before it is compiled into an engine.
+ * <p>
+ * Every problem is collected, so that a broken config file is reported in one go instead of one problem
+ * per attempt. Compiling the engine still checks the details of each symbol and area.
+ */
+public final class ConfigValidator {
+
+    private ConfigValidator() {
+    }
+
+    /**
+     * This method validates a configuration.
+     *
+     * @param config The game configuration.
+     * @throws IllegalArgumentException Listing every problem found, when there is at least one.
+     */
+    public static void validate(GameConfig config) {
+        List<String> problems = new ArrayList<>();
+
+        // Step 1: The board
+        if (config.getRows() < 1 || config.getColumns() < 1) {
+            problems.add("rows and columns must be at least 1");
+        }
+
+        // Step 2: The symbols
+        if (config.getSymbols() == null || config.getSymbols().isEmpty()) {
+            problems.add("symbols must not be empty");
+        } else {
+            for (Map.Entry<String, Symbol> entry : config.getSymbols().entrySet()) {
+                String type = entry.getValue() == null ? null : entry.getValue().getType();
+                if (!"standard".equals(type) && !"bonus".equals(type)) {
+                    problems.add("symbol " + entry.getKey() + " must have type standard or bonus");
+                }
+            }
+        }
+
+        // Step 3: The probabilities
+        GameConfig.Probabilities probabilities = config.getProbabilities();
+        if (probabilities == null) {
+            problems.add("probabilities are missing");
+        } else {
+            GameConfig.StandardSymbolProbability[] cells = probabilities.getStandardSymbols();
+            if (cells == null || cells.length == 0) {
+                problems.add("probabilities.standard_symbols must not be empty");
+            } else {
+                for (GameConfig.StandardSymbolProbability cell : cells) {
+                    String where = "probabilities.standard_symbols " + cell.getRow() + ":" + cell.getColumn();
+                    if (cell.getRow() < 0 || cell.getRow() >= config.getRows()
+                            || cell.getColumn() < 0 || cell.getColumn() >= config.getColumns()) {
+                        problems.add(where + " is outside the board");
+                    }
+                    checkWeights(where, cell.getSymbols(), problems);
+                }
+            }
+            if (probabilities.getBonusSymbols() == null) {
+                problems.add("probabilities.bonus_symbols is missing");
+            } else {
+                checkWeights("probabilities.bonus_symbols", probabilities.getBonusSymbols().getSymbols(), problems);
+            }
+        }
+
+        // Step 4: The win combinations
+        if (config.getWinCombinations() != null) {
+            for (Map.Entry<String, WinCombination> entry : config.getWinCombinations().entrySet()) {
+                WinCombination combination = entry.getValue();
+                String where = "win combination " + entry.getKey();
+                if (combination.getRewardMultiplier() < 0) {
+                    problems.add(where + " must not have a negative reward_multiplier");
+                }
+                if ("same_symbols".equals(combination.getWhen()) && combination.getCount() < 1) {
+                    problems.add(where + " must have a count of at least 1");
+                } else if ("linear_symbols".equals(combination.getWhen())
+                        && (combination.getCoveredAreas() == null || combination.getCoveredAreas().length == 0)
+                        && (combination.getGenerate() == null || combination.getGenerate().length == 0)) {
+                    problems.add(where + " must have covered_areas or generate");
+                } else if (combination.getWhen() == null) {
+                    problems.add(where + " has no 'when'");
+                }
+                if (combination.getGenerate() != null) {
+                    for (String family : combination.getGenerate()) {
+                        if (family == null || !PaylineGenerator.FAMILIES.contains(family)) {
+                            problems.add(where + " cannot generate " + family + " lines");
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Invalid config: " + String.join("; ", problems));
+        }
+    }
+
+    private static void checkWeights(String where, Map<String, Integer> weights, List<String> problems) {
+        if (weights == null || weights.isEmpty()) {
+            problems.add(where + " must have at least one symbol");
+            return;
+        }
+        long total = 0;
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            if (weight.getValue() == null || weight.getValue() < 0) {
+                problems.add(where + " must not have a negative weight for " + weight.getKey());
+            } else {
+                total += weight.getValue();
+            }
+        }
+        if (total == 0) {
+            problems.add(where + " must have a positive total weight");
+        }
+    }
+}
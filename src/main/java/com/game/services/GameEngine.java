@@ -1,52 +1,401 @@
 package com.game.services;
 
+import com.game.journal.SpinJournal;
+import com.game.metrics.EngineMetrics;
 import com.game.models.GameConfig;
 import com.game.models.GameResult;
-import com.game.models.Symbol;
 
-import java.util.*;
+import java.io.IOException;
+import java.util.random.RandomGenerator;
 
+/**
+ * A compiled, immutable snapshot of a configuration that plays spins.
+ * <p>
+ * Everything a spin needs is copied out of the {@link GameConfig} when the engine is created, so later
+ * changes to the config object never affect it, and one engine can be shared by any number of threads.
+ * Reloading a configuration means compiling a new engine and swapping it in.
+ */
 public class GameEngine {
-    private final GameConfig config;
+    private final String version;
+    private final int rows;
+    private final int columns;
+    private final SymbolTable symbols;
     private final MatrixGenerator matrixGenerator;
     private final RewardCalculator rewardCalculator;
+    private final RandomSource random;
+    private final EngineMetrics metrics;
+    private final SpinJournal journal;
+    private volatile OutcomePregenerator pregenerator;
 
     public GameEngine(GameConfig config) {
-        this.config = config;
-        this.matrixGenerator = new MatrixGenerator(config);
-        this.rewardCalculator = new RewardCalculator(config);
+        this(config, RandomSource.threadLocal());
     }
 
+    public GameEngine(GameConfig config, RandomSource random) {
+        this(config, null, random, false);
+    }
+
+    /**
+     * @param config The game configuration.
+     * @param version The version of the configuration, recorded in every result, or {@code null}.
+     * @param random Where the random decisions of spins come from.
+     * @param withMetrics Whether to time and count every spin, see {@link #metrics()}.
+     */
+    public GameEngine(GameConfig config, String version, RandomSource random, boolean withMetrics) {
+        this(config, version, random, withMetrics, null);
+    }
+
+    /**
+     * @param config The game configuration.
+     * @param version The version of the configuration, recorded in every result, or {@code null}.
+     * @param random Where the random decisions of spins come from.
+     * @param withMetrics Whether to time and count every spin, see {@link #metrics()}.
+     * @param journal Records every spin played, or {@code null}.
+     * @throws IllegalArgumentException If the spins of the configuration do not fit the journal records.
+     */
+    public GameEngine(GameConfig config, String version, RandomSource random, boolean withMetrics, SpinJournal journal) {
+        this(config, version, random, withMetrics, journal, null);
+    }
+
+    /**
+     * @param config The game configuration.
+     * @param version The version of the configuration, recorded in every result, or {@code null}.
+     * @param random Where the random decisions of spins come from.
+     * @param withMetrics Whether to time and count every spin, see {@link #metrics()}.
+     * @param journal Records every spin played, or {@code null}.
+     * @param payoutTable How to build a payout table to look boards up in, or {@code null} to evaluate every
+     *                    board; boards are evaluated anyway when the table would not fit its budget.
+     * @throws IllegalArgumentException If the spins of the configuration do not fit the journal records.
+     */
+    public GameEngine(GameConfig config, String version, RandomSource random, boolean withMetrics, SpinJournal journal,
+                      PayoutTable.Options payoutTable) {
+        this.version = version;
+        this.random = random;
+        this.rows = config.getRows();
+        this.columns = config.getColumns();
+        this.symbols = SymbolTable.compile(config);
+        this.matrixGenerator = new MatrixGenerator(config, symbols);
+        WinCombinationPlan plan = new WinCombinationPlan(config, symbols);
+        this.rewardCalculator = new RewardCalculator(plan, payoutTable != null
+                ? PayoutTable.create(plan, rows * columns, version, payoutTable) : null);
+        this.metrics = withMetrics ? createMetrics() : null;
+        if (journal != null) {
+            journal.layout().check(rows * columns, symbols.size(), rewardCalculator.plan().combinationCount());
+            if (version != null) {
+                SpinJournal.versionBits(version);
+            }
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * @return The version of the configuration this engine was compiled from, or {@code null}.
+     */
+    public String version() {
+        return version;
+    }
+
+    /**
+     * @return The metrics of the spins played so far, or {@code null} when the engine was created without.
+     */
+    public EngineMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * This method plays a spin, from a pre-generated outcome when the engine has a {@link #pregenerate
+     * pre-generator}.
+     *
+     * @param bettingAmount The amount bet on the spin.
+     * @return The result of the spin, carrying its seed when the engine seeds spins.
+     * @throws OutcomePregenerator.DrainedException If no pre-generated outcome is available and the
+     *                                              pre-generator's policy is to fail.
+     */
     public GameResult play(double bettingAmount) {
-        // Generate game matrix
-        String[][] matrix = matrixGenerator.generateMatrix();
+        OutcomePregenerator outcomes = pregenerator;
+        if (outcomes != null) {
+            OutcomePregenerator.Outcome outcome = outcomes.take();
+            if (outcome != null) {
+                return finish(bettingAmount, outcome.board(), outcome.evaluation(), outcome.seed());
+            }
+        }
+        return playInline(bettingAmount);
+    }
 
-        // Analyze matrix for winning combinations
-        Map<String, List<String>> winningCombinations = rewardCalculator.checkWinningCombinations(matrix);
+    private GameResult playInline(double bettingAmount) {
+        if (random.seedsSpins()) {
+            return play(bettingAmount, random.nextSeed());
+        }
+        return play(bettingAmount, random.generator(), null);
+    }
+
+    /**
+     * This method plays the spin of a seed. The same seed, bet and configuration always give the same result.
+     *
+     * @param bettingAmount The amount bet on the spin.
+     * @param seed The seed of the spin, as carried by a seeded result.
+     * @return The result of the spin, carrying its seed.
+     */
+    public GameResult play(double bettingAmount, long seed) {
+        return play(bettingAmount, RandomSource.forSeed(seed), seed);
+    }
+
+    private GameResult play(double bettingAmount, RandomGenerator generator, Long seed) {
+        if (metrics != null) {
+            return playWithMetrics(bettingAmount, generator, seed);
+        }
+
+        // Generate game board
+        byte[] board = matrixGenerator.generateBoard(generator);
+
+        // Analyze board for winning combinations
+        SpinEvaluation winningCombinations = rewardCalculator.evaluate(board);
 
         // Calculate reward
-        double reward = rewardCalculator.calculateReward(matrix, bettingAmount, winningCombinations);
+        double reward = rewardCalculator.calculateReward(board, bettingAmount, winningCombinations);
 
         // Find applied bonus symbol (if any)
-        String bonusSymbol = findAppliedBonusSymbol(matrix, winningCombinations);
+        String bonusSymbol = findAppliedBonusSymbol(board, winningCombinations);
 
-        return new GameResult(matrix, reward, winningCombinations, bonusSymbol);
+        if (journal != null) {
+            journal.append(version, seed, bettingAmount, board, columns, winningCombinations, reward);
+        }
+        return new GameResult(board, columns, symbols.names(), reward, winningCombinations, bonusSymbol, seed, version);
     }
 
-    private String findAppliedBonusSymbol(String[][] matrix, Map<String, List<String>> winningCombinations) {
-        if (winningCombinations.isEmpty()) {
-            return null;
+    /**
+     * This method pays out a board generated and evaluated ahead of time.
+     */
+    private GameResult finish(double bettingAmount, byte[] board, SpinEvaluation winningCombinations, Long seed) {
+        double reward = rewardCalculator.calculateReward(board, bettingAmount, winningCombinations);
+        String bonusSymbol = findAppliedBonusSymbol(board, winningCombinations);
+        if (metrics != null) {
+            recordOutcome(bettingAmount, reward, board, winningCombinations);
+        }
+        if (journal != null) {
+            journal.append(version, seed, bettingAmount, board, columns, winningCombinations, reward);
+        }
+        return new GameResult(board, columns, symbols.names(), reward, winningCombinations, bonusSymbol, seed, version);
+    }
+
+    /**
+     * This method starts generating and evaluating boards in the background, for {@link #play(double)} to
+     * claim. Batches are always played inline.
+     *
+     * @param depth The number of outcomes each producer keeps ready, rounded up to a power of two of at least 2.
+     * @param threads The number of producer threads.
+     * @param policy What a spin does when no outcome is ready.
+     * @return The running pre-generator; closing it stops it and goes back to playing spins inline.
+     * @throws IllegalStateException If the engine already has one.
+     */
+    public synchronized OutcomePregenerator pregenerate(int depth, int threads, OutcomePregenerator.DrainPolicy policy) {
+        if (pregenerator != null) {
+            throw new IllegalStateException("The engine already pre-generates outcomes");
+        }
+        OutcomePregenerator outcomes = new OutcomePregenerator(this, depth, threads, policy);
+        outcomes.start();
+        pregenerator = outcomes;
+        return outcomes;
+    }
+
+    synchronized void detach(OutcomePregenerator outcomes) {
+        if (pregenerator == outcomes) {
+            pregenerator = null;
+        }
+    }
+
+    /**
+     * This method rebuilds the result of a recorded spin: its board, reward and seed as recorded, with the
+     * winning combinations and bonus symbols this engine finds on the board. Nothing is journaled.
+     *
+     * @param board The recorded board, one symbol ID per cell in row-major order.
+     * @param reward The recorded reward.
+     * @param seed The recorded seed, or {@code null}.
+     * @return The result, carrying this engine's version.
+     * @throws IllegalArgumentException If the board does not have the shape of this engine's boards.
+     */
+    public GameResult replay(byte[] board, double reward, Long seed) {
+        if (board.length != rows * columns) {
+            throw new IllegalArgumentException("A board of " + board.length + " cells is not " + rows + "x" + columns);
+        }
+        SpinEvaluation winningCombinations = rewardCalculator.evaluate(board);
+        String bonusSymbol = findAppliedBonusSymbol(board, winningCombinations);
+        return new GameResult(board, columns, symbols.names(), reward, winningCombinations, bonusSymbol, seed, version);
+    }
+
+    /**
+     * This method scores a board supplied from outside the game, as a spin that generated it would have
+     * paid it. Nothing is journaled or counted.
+     *
+     * @param board The board, as returned by {@link #toBoard(String[][])}.
+     * @param bettingAmount The amount bet on the board.
+     * @param seed The seed recorded with the board, or {@code null}.
+     * @return The result, with the reward this engine pays and carrying this engine's version.
+     * @throws IllegalArgumentException If the board does not have the shape of this engine's boards.
+     */
+    public GameResult score(byte[] board, double bettingAmount, Long seed) {
+        if (board.length != rows * columns) {
+            throw new IllegalArgumentException("A board of " + board.length + " cells is not " + rows + "x" + columns);
+        }
+        SpinEvaluation winningCombinations = rewardCalculator.evaluate(board);
+        double reward = rewardCalculator.calculateReward(board, bettingAmount, winningCombinations);
+        String bonusSymbol = findAppliedBonusSymbol(board, winningCombinations);
+        return new GameResult(board, columns, symbols.names(), reward, winningCombinations, bonusSymbol, seed, version);
+    }
+
+    /**
+     * This method converts a symbol matrix into a board of this engine.
+     *
+     * @param matrix The matrix, one array of symbol names per row.
+     * @return The board, one symbol ID per cell in row-major order.
+     * @throws IllegalArgumentException If the matrix is not rows x columns, or holds a symbol the config does not know.
+     */
+    public byte[] toBoard(String[][] matrix) {
+        if (matrix.length != rows) {
+            throw new IllegalArgumentException("A matrix of " + matrix.length + " rows is not " + rows + "x" + columns);
         }
-      StringBuilder bresult= new StringBuilder();
-        // Check all cells for bonus symbols
         for (String[] row : matrix) {
+            if (row == null || row.length != columns) {
+                throw new IllegalArgumentException("A matrix row of " + (row == null ? 0 : row.length)
+                        + " cells is not " + rows + "x" + columns);
+            }
             for (String symbol : row) {
-                Symbol symbolConfig = config.getSymbols().get(symbol);
-                if (symbolConfig != null && "bonus".equals(symbolConfig.getType()) && !"MISS".equals(symbol)) {
-                    bresult.append(symbol).append(",");
+                if (symbol == null || symbols.idOf(symbol) == symbols.unknownId()) {
+                    throw new IllegalArgumentException("Symbol " + symbol + " is not in the config");
+                }
+            }
+        }
+        return symbols.toBoard(matrix);
+    }
+
+    /**
+     * This method plays a batch of spins with the same bet, handing each result to the sink as soon as it
+     * is played, so that no more than one result is held at a time.
+     *
+     * @param bettingAmount The amount bet on every spin.
+     * @param spins The number of spins to play.
+     * @param sink Receives the results in the order they were played.
+     */
+    public void playBatch(double bettingAmount, long spins, GameResultSink sink) throws IOException {
+        for (long i = 0; i < spins; i++) {
+            sink.accept(playInline(bettingAmount));
+        }
+    }
+
+    /**
+     * Same as {@link #playBatch(double, long, GameResultSink)}, playing every spin from its own seed. The
+     * seeds are derived in order from the master seed, so the same master seed replays the whole batch.
+     *
+     * @param bettingAmount The amount bet on every spin.
+     * @param spins The number of spins to play.
+     * @param seed The master seed the seed of every spin is derived from.
+     * @param sink Receives the results in the order they were played.
+     */
+    public void playBatch(double bettingAmount, long spins, long seed, GameResultSink sink) throws IOException {
+        RandomGenerator seeds = RandomSource.forSeed(seed);
+        for (long i = 0; i < spins; i++) {
+            sink.accept(play(bettingAmount, seeds.nextLong()));
+        }
+    }
+
+    /**
+     * Same as {@link #play(double, RandomGenerator, Long)}, timing every phase of the spin and counting
+     * its bet, reward, winning combinations and bonus symbols.
+     */
+    private GameResult playWithMetrics(double bettingAmount, RandomGenerator generator, Long seed) {
+        // Step 1: Run the phases of the spin, reading the clock between them
+        long start = System.nanoTime();
+        byte[] board = matrixGenerator.generateBoard(generator);
+        long generated = System.nanoTime();
+        SpinEvaluation winningCombinations = rewardCalculator.evaluate(board);
+        long checked = System.nanoTime();
+        double reward = winningCombinations.isWinning()
+                ? rewardCalculator.plan().baseReward(winningCombinations, bettingAmount) : 0.0;
+        long rewarded = System.nanoTime();
+        reward = rewardCalculator.applyBonusSymbols(board, reward);
+        String bonusSymbol = findAppliedBonusSymbol(board, winningCombinations);
+        long finished = System.nanoTime();
+
+        // Step 2: Record the timings and the outcome
+        metrics.recordLatency(EngineMetrics.Phase.GENERATION, generated - start);
+        metrics.recordLatency(EngineMetrics.Phase.CHECKING, checked - generated);
+        metrics.recordLatency(EngineMetrics.Phase.REWARD, rewarded - checked);
+        metrics.recordLatency(EngineMetrics.Phase.BONUS, finished - rewarded);
+        recordOutcome(bettingAmount, reward, board, winningCombinations);
+
+        if (journal != null) {
+            journal.append(version, seed, bettingAmount, board, columns, winningCombinations, reward);
+        }
+        return new GameResult(board, columns, symbols.names(), reward, winningCombinations, bonusSymbol, seed, version);
+    }
+
+    /**
+     * This method counts the bet, reward, winning combinations and bonus symbols of a spin.
+     */
+    private void recordOutcome(double bettingAmount, double reward, byte[] board, SpinEvaluation winningCombinations) {
+        metrics.recordSpin(bettingAmount, reward, winningCombinations.isWinning());
+        if (winningCombinations.isWinning()) {
+            for (int symbol = 0; symbol < symbols.size(); symbol++) {
+                if (!winningCombinations.isWinning(symbol)) {
+                    continue;
+                }
+                for (int combination = 0; combination < rewardCalculator.plan().combinationCount(); combination++) {
+                    int hits = winningCombinations.hits(symbol, combination);
+                    if (hits > 0) {
+                        metrics.recordCombinationWins(combination, hits);
+                    }
                 }
             }
         }
+        for (byte symbol : board) {
+            if (symbols.isBonus(symbol)) {
+                metrics.recordBonusSymbol(symbol);
+            }
+        }
+    }
+
+    private EngineMetrics createMetrics() {
+        WinCombinationPlan plan = rewardCalculator.plan();
+        String[] combinationNames = new String[plan.combinationCount()];
+        for (int i = 0; i < combinationNames.length; i++) {
+            combinationNames[i] = plan.combinationName(i);
+        }
+        String[] bonusSymbolNames = new String[symbols.size()];
+        for (int id = 0; id < symbols.size(); id++) {
+            if (symbols.isBonus(id)) {
+                bonusSymbolNames[id] = symbols.name(id);
+            }
+        }
+        return new EngineMetrics(combinationNames, bonusSymbolNames);
+    }
+
+    /**
+     * @return The approximate heap footprint of the compiled configuration, used to budget engine caches.
+     */
+    public long estimatedBytes() {
+        return 256 + symbols.estimatedBytes() + matrixGenerator.probabilityService().estimatedBytes()
+                + rewardCalculator.plan().estimatedBytes()
+                + (rewardCalculator.payoutTable() != null ? rewardCalculator.payoutTable().estimatedBytes() : 0);
+    }
+
+    public int rows() { return rows; }
+    public int columns() { return columns; }
+    SymbolTable symbols() { return symbols; }
+    RandomSource randomSource() { return random; }
+    MatrixGenerator matrixGenerator() { return matrixGenerator; }
+    public RewardCalculator rewardCalculator() { return rewardCalculator; }
+
+    private String findAppliedBonusSymbol(byte[] board, SpinEvaluation winningCombinations) {
+        if (!winningCombinations.isWinning()) {
+            return null;
+        }
+      StringBuilder bresult= new StringBuilder();
+        // Check all cells for bonus symbols
+        for (byte symbol : board) {
+            if (symbols.isReportedBonus(symbol)) {
+                bresult.append(symbols.name(symbol)).append(",");
+            }
+        }
         return bresult.toString();
     }
 }
@@ -0,0 +1,13 @@
+package com.game.services;
+
+import com.game.models.GameResult;
+
+import java.io.IOException;
+
+/**
+ * Receives the results of a batch of spins, one at a time, as they are played.
+ */
+@FunctionalInterface
+public interface GameResultSink {
+    void accept(GameResult result) throws IOException;
+}
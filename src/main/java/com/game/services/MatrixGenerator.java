@@ -2,38 +2,73 @@ package com.game.services;
 
 
 import com.game.models.GameConfig;
-import java.util.Random;
-import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class MatrixGenerator {
-    private final GameConfig config;
+    private final int rows;
+    private final int columns;
+    private final SymbolTable symbols;
     private final ProbabilityService probabilityService;
 
-    private final Random random = new Random();
-
     public MatrixGenerator(GameConfig config) {
-        this.config = config;
-        this.probabilityService = new ProbabilityService(config);
+        this(config, SymbolTable.compile(config));
+    }
+
+    public MatrixGenerator(GameConfig config, SymbolTable symbols) {
+        this.rows = config.getRows();
+        this.columns = config.getColumns();
+        this.symbols = symbols;
+        this.probabilityService = new ProbabilityService(config, symbols);
     }
+
+    int rows() { return rows; }
+    int columns() { return columns; }
+    ProbabilityService probabilityService() { return probabilityService; }
+
     public String[][] generateMatrix() {
-        var rows = config.getRows();
-        var cols = config.getColumns();
+        byte[] board = generateBoard();
+        String[][] matrix = new String[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                matrix[row][col] = symbols.name(board[row * columns + col]);
+            }
+        }
+        return matrix;
+    }
 
-        var matrix = IntStream.range(0, rows)
-                .mapToObj(row -> IntStream.range(0, cols)
-                        .mapToObj(col -> probabilityService.getRandomStandardSymbol(row, col))
-                        .toArray(String[]::new))
-                .toArray(String[][]::new);
+    /**
+     * This method generates a board of symbol IDs in row-major order. Every cell gets a standard symbol,
+     * then up to two bonus symbols are dropped on random cells, possibly on the same one. Every draw comes
+     * from the calling thread's own {@link ThreadLocalRandom}, so concurrent callers never contend.
+     *
+     * @return The board, one byte per cell.
+     */
+    public byte[] generateBoard() {
+        return generateBoard(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as {@link #generateBoard()}, drawing every random decision from the given source, so that a
+     * seeded source always produces the same board.
+     *
+     * @param random The random source to draw from.
+     * @return The board, one byte per cell.
+     */
+    public byte[] generateBoard(RandomGenerator random) {
+        byte[] board = new byte[rows * columns];
+        for (int cell = 0; cell < board.length; cell++) {
+            board[cell] = (byte) probabilityService.sampleStandardSymbol(cell, random);
+        }
 
         // Add bonus symbols
         var bonusSymbolsCount = random.nextInt(3);
-        IntStream.range(0, bonusSymbolsCount)
-                .forEach(i -> {
-                    var row = random.nextInt(rows);
-                    var col = random.nextInt(cols);
-                    matrix[row][col] = probabilityService.getRandomBonusSymbol();
-                });
+        for (int i = 0; i < bonusSymbolsCount; i++) {
+            var row = random.nextInt(rows);
+            var col = random.nextInt(columns);
+            board[row * columns + col] = (byte) probabilityService.sampleBonusSymbol(random);
+        }
 
-        return matrix;
+        return board;
     }
-}
\ No newline at end of file
+}
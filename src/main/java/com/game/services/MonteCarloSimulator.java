@@ -0,0 +1,87 @@
+package com.game.services;
+
+import com.game.models.SimulationResult;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a large number of spins across all cores to measure the return of a configuration.
+ * <p>
+ * The spins are cut into fixed-size blocks. Each block draws from its own {@link SplittableRandom}, split
+ * in block order from one generator seeded with the master seed, and keeps its own
+ * {@link SimulationStats}. Finished blocks are merged strictly in block order, so a given seed always
+ * produces the same report, whatever the number of threads and however the blocks were scheduled.
+ */
+public class MonteCarloSimulator {
+    static final int BLOCK_SIZE = 1 << 16;
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 4;
+
+    private final GameEngine engine;
+    private final int threads;
+
+    public MonteCarloSimulator(GameEngine engine, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+        this.engine = engine;
+        this.threads = threads;
+    }
+
+    /**
+     * This method runs the simulation.
+     *
+     * @param spins The number of spins to play.
+     * @param bettingAmount The amount bet on every spin.
+     * @param seed The master seed all block generators are derived from.
+     * @return The report of the run.
+     */
+    public SimulationResult run(long spins, double bettingAmount, long seed) throws InterruptedException {
+        if (spins < 1) {
+            throw new IllegalArgumentException("At least one spin is required");
+        }
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            SimulationStats total = new SimulationStats(engine.rewardCalculator().plan());
+            Deque<Future<SimulationStats>> pending = new ArrayDeque<>();
+            for (long start = 0; start < spins; start += BLOCK_SIZE) {
+                // Step 1: Derive each block's generator in block order
+                long blockSpins = Math.min(BLOCK_SIZE, spins - start);
+                SplittableRandom random = master.split();
+                pending.addLast(executor.submit(() -> runBlock(blockSpins, bettingAmount, random)));
+
+                // Step 2: Merge finished blocks in the same order, keeping only a few blocks in flight
+                if (pending.size() >= threads * BLOCKS_IN_FLIGHT_PER_THREAD) {
+                    total.merge(pending.removeFirst().get());
+                }
+            }
+            while (!pending.isEmpty()) {
+                total.merge(pending.removeFirst().get());
+            }
+            return total.toResult(seed, bettingAmount);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SimulationStats runBlock(long spins, double bettingAmount, SplittableRandom random) {
+        MatrixGenerator matrixGenerator = engine.matrixGenerator();
+        RewardCalculator rewardCalculator = engine.rewardCalculator();
+        SimulationStats stats = new SimulationStats(rewardCalculator.plan());
+        for (long i = 0; i < spins; i++) {
+            byte[] board = matrixGenerator.generateBoard(random);
+            SpinEvaluation evaluation = rewardCalculator.evaluate(board);
+            double reward = rewardCalculator.calculateReward(board, bettingAmount, evaluation);
+            stats.record(board, evaluation, reward);
+        }
+        return stats;
+    }
+}
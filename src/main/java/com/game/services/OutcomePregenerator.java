@@ -0,0 +1,202 @@
+package com.game.services;
+
+import com.game.metrics.OutcomeBufferMetrics;
+
+import java.io.Closeable;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Background threads that generate and evaluate the boards of an engine's spins ahead of time, so that a
+ * spin only claims a finished outcome and works out its reward for the bet.
+ * <p>
+ * Every producer thread fills its own {@link OutcomeRing}. A spin claims from the rings in turn, starting
+ * from a ring chosen by its thread ID, which only spreads concurrent spins over the rings: spins never run
+ * on producer threads, so no ring belongs to a spin's thread. An outcome holds the board, its winning combinations and its seed, not a
+ * reward: extra-bonus symbols add a fixed amount, so the reward is not proportional to the bet, and it is
+ * calculated exactly, as an inline spin would, when the outcome is claimed. Seeded outcomes carry their
+ * seed, so a pre-generated spin replays like any other.
+ * <p>
+ * What a spin does when every ring is empty is the {@link DrainPolicy}.
+ */
+public final class OutcomePregenerator implements Closeable {
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CONSUMER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final int CONSUMER_SPINS = 100;
+
+    /**
+     * What a spin does when it finds no pre-generated outcome.
+     */
+    public enum DrainPolicy {
+        /** Wait for a producer to add one. */
+        BLOCK,
+        /** Play the spin inline, as without pre-generation. */
+        FALLBACK,
+        /** Throw a {@link DrainedException}. */
+        FAIL;
+
+        /**
+         * @throws IllegalArgumentException If the name is not one of the policies, in any case.
+         */
+        public static DrainPolicy parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown drain policy " + name + ", expected block, fallback or fail");
+            }
+        }
+    }
+
+    /**
+     * Thrown by a spin that finds no pre-generated outcome under {@link DrainPolicy#FAIL}.
+     */
+    public static final class DrainedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        DrainedException() {
+            super("No pre-generated outcome is available");
+        }
+    }
+
+    /**
+     * A generated and evaluated board.
+     */
+    record Outcome(byte[] board, SpinEvaluation evaluation, Long seed) { }
+
+    private final GameEngine engine;
+    private final DrainPolicy policy;
+    private final OutcomeRing<Outcome>[] rings;
+    private final Thread[] producers;
+    private final OutcomeBufferMetrics metrics;
+    private volatile boolean running = true;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    OutcomePregenerator(GameEngine engine, int depth, int threads, DrainPolicy policy) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread must pre-generate outcomes");
+        }
+        this.engine = engine;
+        this.policy = policy;
+        this.rings = new OutcomeRing[threads];
+        for (int i = 0; i < threads; i++) {
+            rings[i] = new OutcomeRing<>(depth);
+        }
+        this.metrics = new OutcomeBufferMetrics((long) rings[0].capacity() * threads, this::size, policy.name());
+        this.producers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            OutcomeRing<Outcome> ring = rings[i];
+            producers[i] = new Thread(() -> produce(ring), "outcome-pregenerator-" + i);
+            producers[i].setDaemon(true);
+        }
+    }
+
+    void start() {
+        for (Thread producer : producers) {
+            producer.start();
+        }
+    }
+
+    /**
+     * This method keeps a ring full until the pre-generator is closed.
+     */
+    private void produce(OutcomeRing<Outcome> ring) {
+        RandomSource random = engine.randomSource();
+        while (running) {
+            // Step 1: Generate and evaluate a board, as an inline spin would
+            Long seed = random.seedsSpins() ? random.nextSeed() : null;
+            RandomGenerator generator = seed != null ? RandomSource.forSeed(seed) : random.generator();
+            byte[] board = engine.matrixGenerator().generateBoard(generator);
+            Outcome outcome = new Outcome(board, engine.rewardCalculator().evaluate(board), seed);
+
+            // Step 2: Wait for a free slot
+            while (!ring.offer(outcome)) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+            }
+            metrics.recordProduced();
+        }
+    }
+
+    /**
+     * This method claims a pre-generated outcome for a spin.
+     *
+     * @return The outcome, or {@code null} when the spin is to be played inline: the buffer is drained under
+     *         {@link DrainPolicy#FALLBACK}, or the pre-generator is closed.
+     * @throws DrainedException If the buffer is drained under {@link DrainPolicy#FAIL}.
+     */
+    Outcome take() {
+        Outcome outcome = poll();
+        if (outcome != null || !running) {
+            return outcome;
+        }
+        metrics.recordDrained();
+        switch (policy) {
+            case FALLBACK -> {
+                return null;
+            }
+            case FAIL -> throw new DrainedException();
+            default -> {
+                for (int spins = 0; running; spins++) {
+                    if (spins < CONSUMER_SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(CONSUMER_PARK_NANOS);
+                    }
+                    if ((outcome = poll()) != null) {
+                        return outcome;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    private Outcome poll() {
+        // The thread ID spreads spins over the rings; it is not an affinity, and virtual threads get any ID
+        int first = (int) (Thread.currentThread().threadId() % rings.length);
+        for (int i = 0; i < rings.length; i++) {
+            OutcomeRing<Outcome> ring = rings[(first + i) % rings.length];
+            Outcome outcome = ring.poll();
+            if (outcome != null) {
+                metrics.recordClaimed(size());
+                return outcome;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of outcomes waiting in all rings.
+     */
+    private long size() {
+        long size = 0;
+        for (OutcomeRing<Outcome> ring : rings) {
+            size += ring.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return The counters and occupancy of the buffer, to publish with {@link OutcomeBufferMetrics#register()}.
+     */
+    public OutcomeBufferMetrics metrics() { return metrics; }
+
+    public DrainPolicy policy() { return policy; }
+
+    /**
+     * This method detaches the pre-generator from its engine, whose spins are then played inline, and stops
+     * the producer threads. Outcomes still waiting are dropped.
+     */
+    @Override
+    public void close() {
+        engine.detach(this);
+        running = false;
+        for (Thread producer : producers) {
+            LockSupport.unpark(producer);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.game.services;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free ring of pre-generated outcomes with one producer and any number of consumers.
+ * <p>
+ * The slots are allocated once. Each carries a sequence number that says whose turn it is: a slot whose
+ * sequence equals a position is free for the producer to fill at that position, and one whose sequence is
+ * one past it holds the outcome of that position. The producer fills its next slot and publishes it by
+ * advancing the sequence with release semantics, without any atomic instruction. A consumer claims the
+ * oldest outcome by moving the shared head on with a compare-and-set, then hands the slot back to the
+ * producer for the next lap by advancing its sequence by the capacity.
+ *
+ * @param <T> The type of the outcomes.
+ */
+final class OutcomeRing<T> {
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Slot<T> {
+        @SuppressWarnings("unused")  // Accessed through SEQUENCE
+        private volatile long sequence;
+        private T outcome;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private final Slot<T>[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    /**
+     * @param capacity The number of slots, rounded up to a power of two, and to two at least: with a single
+     *                 slot, the sequence of a filled slot would also mark it free for the next lap.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    OutcomeRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("The outcome buffer depth must be between 1 and " + (1 << 30));
+        }
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot<>(i);
+        }
+    }
+
+    /**
+     * This method adds an outcome, if a slot is free. Only the producer may call it.
+     *
+     * @return Whether the outcome was added; {@code false} when the ring is full.
+     */
+    boolean offer(T outcome) {
+        long position = tail;
+        Slot<T> slot = slots[(int) position & mask];
+        if ((long) SEQUENCE.getAcquire(slot) != position) {
+            return false;
+        }
+        slot.outcome = outcome;
+        SEQUENCE.setRelease(slot, position + 1);
+        tail = position + 1;
+        return true;
+    }
+
+    /**
+     * This method claims the oldest outcome. Any thread may call it.
+     *
+     * @return The outcome, or {@code null} when the ring is empty.
+     */
+    T poll() {
+        while (true) {
+            long position = head.get();
+            Slot<T> slot = slots[(int) position & mask];
+            long sequence = (long) SEQUENCE.getAcquire(slot);
+            if (sequence < position + 1) {
+                return null;
+            }
+            if (sequence == position + 1 && head.compareAndSet(position, position + 1)) {
+                T outcome = slot.outcome;
+                slot.outcome = null;
+                SEQUENCE.setRelease(slot, position + slots.length);
+                return outcome;
+            }
+            // Another consumer claimed it first; try the next one
+        }
+    }
+
+    /**
+     * @return The number of outcomes waiting, at some moment during the call.
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(slots.length, tail - head.get()));
+    }
+
+    int capacity() { return slots.length; }
+}
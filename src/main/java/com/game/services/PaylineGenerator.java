@@ -0,0 +1,89 @@
+package com.game.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the covered areas of {@code linear_symbols} combinations that list line families in
+ * {@code generate} instead of spelling out every coordinate.
+ * <p>
+ * Lines are cell indices in row-major order, in the order of their family:
+ * <ul>
+ *   <li>{@code rows}: every row, top to bottom.</li>
+ *   <li>{@code columns}: every column, left to right.</li>
+ *   <li>{@code diagonals}: every diagonal as long as the shorter side of the board, first those going down
+ *       to the right, then those going down to the left, each by starting row and then column.</li>
+ *   <li>{@code zigzags}: every line across the board that alternates between two adjacent rows, by upper
+ *       row, starting on the upper row and then on the lower one.</li>
+ * </ul>
+ */
+public final class PaylineGenerator {
+    public static final Set<String> FAMILIES = Set.of("rows", "columns", "diagonals", "zigzags");
+
+    private PaylineGenerator() {
+    }
+
+    /**
+     * This method generates the lines of a family.
+     *
+     * @param family One of {@link #FAMILIES}.
+     * @param rows The number of rows of the board.
+     * @param columns The number of columns of the board.
+     * @return The lines, each as the cell indices it covers.
+     * @throws IllegalArgumentException If the family is unknown.
+     */
+    public static int[][] generate(String family, int rows, int columns) {
+        List<int[]> lines = new ArrayList<>();
+        switch (family == null ? "" : family) {
+            case "rows" -> {
+                for (int row = 0; row < rows; row++) {
+                    int[] line = new int[columns];
+                    for (int col = 0; col < columns; col++) {
+                        line[col] = row * columns + col;
+                    }
+                    lines.add(line);
+                }
+            }
+            case "columns" -> {
+                for (int col = 0; col < columns; col++) {
+                    int[] line = new int[rows];
+                    for (int row = 0; row < rows; row++) {
+                        line[row] = row * columns + col;
+                    }
+                    lines.add(line);
+                }
+            }
+            case "diagonals" -> {
+                int length = Math.min(rows, columns);
+                if (length >= 2) {
+                    for (boolean downRight : new boolean[] {true, false}) {
+                        for (int top = 0; top + length <= rows; top++) {
+                            for (int left = 0; left + length <= columns; left++) {
+                                int[] line = new int[length];
+                                for (int i = 0; i < length; i++) {
+                                    line[i] = (top + i) * columns + (downRight ? left + i : left + length - 1 - i);
+                                }
+                                lines.add(line);
+                            }
+                        }
+                    }
+                }
+            }
+            case "zigzags" -> {
+                for (int upper = 0; upper + 1 < rows; upper++) {
+                    for (int phase = 0; phase < 2; phase++) {
+                        int[] line = new int[columns];
+                        for (int col = 0; col < columns; col++) {
+                            line[col] = (upper + (col + phase) % 2) * columns + col;
+                        }
+                        lines.add(line);
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown line family: " + family
+                    + " (expected one of rows, columns, diagonals, zigzags)");
+        }
+        return lines.toArray(int[][]::new);
+    }
+}
@@ -0,0 +1,717 @@
+package com.game.services;
+
+import com.game.models.AnalysisResult;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the exact return of a configuration, instead of estimating it by simulation.
+ * <p>
+ * The analysis follows the engine step by step. Every cell draws a symbol independently with its
+ * configured weights. Then 0, 1 or 2 bonus symbols (equally likely) are dropped on uniformly chosen cells,
+ * the second one overwriting the first if they land on the same cell. The board is evaluated by the same
+ * rules as {@link WinCombinationPlan}, and if it pays, the bonus symbols on the board are applied in
+ * row-major order, which turns a reward {@code R} into {@code a * R + b}.
+ * <p>
+ * Dynamic programs run over the cells in row-major order. A bonus drop that has not landed yet lands on
+ * the current cell with probability {@code 1 / (cells left)}, so the drops are part of the state, as two
+ * "pending" flags, and the result is exact without enumerating where they land. The programs compute:
+ * <ul>
+ *   <li>the expected reward, by linearity, from one small program per standard symbol that tracks the
+ *       symbol's count and which open areas it still fills;</li>
+ *   <li>the hit rate, from a joint program over all symbols that only keeps boards without a win yet;</li>
+ *   <li>the full payout distribution, from a joint program that tracks every symbol's count, completed
+ *       areas, open areas and the bonus symbols landed so far, as long as it stays below a configurable
+ *       number of states.</li>
+ * </ul>
+ * The programs run in parallel. All multipliers must be positive, so that a board pays exactly when it
+ * has a winning combination.
+ */
+public class PayoutAnalyzer {
+    private static final int PENDING_FIRST = 1;
+    private static final int PENDING_SECOND = 2;
+    private static final int FLAG_STATES = 4;
+
+    private final SymbolTable symbols;
+    private final WinCombinationPlan plan;
+    private final int cellCount;
+    private final int parallelism;
+    private final int maxStates;
+
+    // Symbols are grouped in classes: one per standard symbol, plus one for every other symbol
+    private final int[] standard;
+    private final int blank;
+
+    // What can happen on each cell, for each combination of pending bonus drops
+    private final Branch[][] branches;
+    private final int[] certainlyStandardAfter;
+
+    // same_symbols rules
+    private final boolean hasSameRules;
+    private final int countCap;
+    private final int minCount;
+
+    // linear_symbols rules and their areas
+    private final int[] linearRules;
+    private final int[] ruleOfCombination;
+    private final int[][] areaCells;
+    private final int[] areaRule;
+    private final int[] areaEnd;
+    private final int[][] startingAt;
+    private final int[][] continuingAt;
+
+    /**
+     * One way a cell can turn out: the pending bonus drops left afterwards, the class of the symbol it
+     * shows, the bonus symbol with an impact it adds to the board (or -1), and the probability.
+     */
+    private record Branch(int flags, int symbolClass, int bonus, double probability) {}
+
+    /**
+     * This method prepares the analysis of an engine's configuration.
+     *
+     * @param engine The engine to analyze.
+     * @param parallelism The number of threads to use.
+     * @param maxStates The largest number of states a joint program may hold. The distribution is left out
+     *                  when it needs more; the hit rate cannot be, and fails instead.
+     */
+    public PayoutAnalyzer(GameEngine engine, int parallelism, int maxStates) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("At least one thread is required");
+        }
+        this.symbols = engine.symbols();
+        this.plan = engine.rewardCalculator().plan();
+        this.cellCount = engine.matrixGenerator().rows() * engine.matrixGenerator().columns();
+        this.parallelism = parallelism;
+        this.maxStates = maxStates;
+
+        // Step 1: Symbol classes
+        this.standard = plan.standardSymbols();
+        this.blank = standard.length;
+        int[] classOf = new int[symbols.size()];
+        Arrays.fill(classOf, blank);
+        for (int i = 0; i < standard.length; i++) {
+            classOf[standard[i]] = i;
+            if (!(symbols.multiplier(standard[i]) > 0)) {
+                throw new IllegalArgumentException("Exact analysis requires positive reward multipliers, but "
+                        + symbols.name(standard[i]) + " has " + symbols.multiplier(standard[i]));
+            }
+        }
+
+        // Step 2: Rules
+        boolean same = false;
+        int maxCount = 0;
+        int smallestCount = Integer.MAX_VALUE;
+        List<Integer> linear = new ArrayList<>();
+        this.ruleOfCombination = new int[plan.combinationCount()];
+        Arrays.fill(ruleOfCombination, -1);
+        for (int combination = 0; combination < plan.combinationCount(); combination++) {
+            if (!plan.isSameSymbols(combination) && !plan.isLinearSymbols(combination)) {
+                continue;
+            }
+            if (!(plan.combinationMultiplier(combination) > 0)) {
+                throw new IllegalArgumentException("Exact analysis requires positive reward multipliers, but "
+                        + plan.combinationName(combination) + " has " + plan.combinationMultiplier(combination));
+            }
+            if (plan.isSameSymbols(combination)) {
+                int count = Math.max(1, plan.requiredCount(combination));
+                if (count <= cellCount) {
+                    same = true;
+                    maxCount = Math.max(maxCount, count);
+                    smallestCount = Math.min(smallestCount, count);
+                }
+            } else {
+                ruleOfCombination[combination] = linear.size();
+                linear.add(combination);
+            }
+        }
+        this.hasSameRules = same;
+        this.countCap = maxCount;
+        this.minCount = smallestCount;
+        if (countCap > 0xFF) {
+            throw new IllegalArgumentException("Exact analysis supports same_symbols counts up to 255");
+        }
+        this.linearRules = linear.stream().mapToInt(Integer::intValue).toArray();
+
+        // Step 3: Areas, and where each of them starts, continues and ends in row-major order
+        List<int[]> cells = new ArrayList<>();
+        List<Integer> rules = new ArrayList<>();
+        for (int rule = 0; rule < linearRules.length; rule++) {
+            for (int[] area : plan.areas(linearRules[rule])) {
+                if (area.length > 0) {
+                    cells.add(Arrays.stream(area).distinct().sorted().toArray());
+                    rules.add(rule);
+                }
+            }
+        }
+        this.areaCells = cells.toArray(int[][]::new);
+        this.areaRule = rules.stream().mapToInt(Integer::intValue).toArray();
+        this.areaEnd = Arrays.stream(areaCells).mapToInt(area -> area[area.length - 1]).toArray();
+        List<List<Integer>> starting = new ArrayList<>();
+        List<List<Integer>> continuing = new ArrayList<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            starting.add(new ArrayList<>());
+            continuing.add(new ArrayList<>());
+        }
+        for (int area = 0; area < areaCells.length; area++) {
+            starting.get(areaCells[area][0]).add(area);
+            for (int i = 1; i < areaCells[area].length; i++) {
+                continuing.get(areaCells[area][i]).add(area);
+            }
+        }
+        this.startingAt = starting.stream().map(list -> list.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+        this.continuingAt = continuing.stream().map(list -> list.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+
+        // Step 4: Branches of every cell
+        ProbabilityService probabilities = engine.matrixGenerator().probabilityService();
+        Map<Long, Double> bonusOutcomes = outcomes(probabilities.bonusTable(), classOf);
+        this.branches = new Branch[cellCount * FLAG_STATES][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            Map<Long, Double> standardOutcomes = outcomes(probabilities.cellTable(cell), classOf);
+            double landing = 1.0 / (cellCount - cell);
+            for (int flags = 0; flags < FLAG_STATES; flags++) {
+                List<Branch> list = new ArrayList<>();
+                for (int landed = flags; ; landed = (landed - 1) & flags) {
+                    // Each pending drop lands here, independently, with the same probability
+                    double probability = 1.0;
+                    for (int drop = PENDING_FIRST; drop <= PENDING_SECOND; drop <<= 1) {
+                        if ((flags & drop) != 0) {
+                            probability *= (landed & drop) != 0 ? landing : 1.0 - landing;
+                        }
+                    }
+                    if (probability > 0) {
+                        for (Map.Entry<Long, Double> outcome : (landed == 0 ? standardOutcomes : bonusOutcomes).entrySet()) {
+                            long key = outcome.getKey();
+                            list.add(new Branch(flags & ~landed, (int) (key >> 32), (int) key, probability * outcome.getValue()));
+                        }
+                    }
+                    if (landed == 0) {
+                        break;
+                    }
+                }
+                branches[cell * FLAG_STATES + flags] = list.toArray(Branch[]::new);
+            }
+        }
+        this.certainlyStandardAfter = new int[cellCount];
+        for (int cell = cellCount - 2; cell >= 0; cell--) {
+            boolean alwaysStandard = Arrays.stream(branches[(cell + 1) * FLAG_STATES])
+                    .allMatch(branch -> branch.symbolClass() != blank);
+            certainlyStandardAfter[cell] = certainlyStandardAfter[cell + 1] + (alwaysStandard ? 1 : 0);
+        }
+    }
+
+    /**
+     * @return The probability of each (class, bonus symbol with an impact or -1) outcome of a table,
+     *         keyed by {@code class << 32 | bonus}.
+     */
+    private Map<Long, Double> outcomes(AliasTable table, int[] classOf) {
+        Map<Long, Double> outcomes = new TreeMap<>();
+        for (int i = 0; i < table.size(); i++) {
+            int symbol = table.outcome(i);
+            int bonus = symbols.impact(symbol) != SymbolTable.IMPACT_NONE ? symbol : -1;
+            long key = ((long) classOf[symbol] << 32) | (bonus & 0xFFFFFFFFL);
+            outcomes.merge(key, table.probability(i), Double::sum);
+        }
+        outcomes.values().removeIf(probability -> probability == 0);
+        return outcomes;
+    }
+
+    /**
+     * This method runs the analysis.
+     *
+     * @param bettingAmount The amount bet on the game.
+     * @param withDistribution Whether to compute the full payout distribution.
+     * @return The expected payout, hit rate and, when requested and feasible, the payout distribution.
+     */
+    public AnalysisResult analyze(double bettingAmount, boolean withDistribution) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            // Step 1: Run the programs in parallel, the biggest first
+            Future<Map<Double, Double>> distributionTask = withDistribution
+                    ? executor.submit(() -> payoutDistribution(bettingAmount)) : null;
+            Future<double[]> noWinTask = executor.submit(this::noWin);
+            List<Future<Double>> winTasks = new ArrayList<>();
+            for (int symbolClass = 0; symbolClass < standard.length; symbolClass++) {
+                int target = symbolClass;
+                winTasks.add(executor.submit(() -> expectedWin(target)));
+            }
+
+            // Step 2: E[payout] = E[a * R] + E[b * 1{R > 0}] = E[a * R] + E[b] - E[b * 1{no win}]
+            double expected = 0.0;
+            for (int symbolClass = 0; symbolClass < standard.length; symbolClass++) {
+                expected += bettingAmount * symbols.multiplier(standard[symbolClass]) * winTasks.get(symbolClass).get();
+            }
+            double[] noWin = noWinTask.get();
+            expected += expectedExtra() - noWin[1];
+            double hitRate = Math.min(1.0, Math.max(0.0, 1.0 - noWin[0]));
+
+            Map<Double, Double> distribution = distributionTask != null ? distributionTask.get() : null;
+            if (distribution == null) {
+                return new AnalysisResult(bettingAmount, expected, expected / bettingAmount, hitRate, null, null, null);
+            }
+
+            // Step 3: Summarize the distribution
+            List<AnalysisResult.Payout> payouts = new ArrayList<>();
+            double variance = 0.0;
+            double max = 0.0;
+            for (Map.Entry<Double, Double> payout : new TreeMap<>(distribution).entrySet()) {
+                payouts.add(new AnalysisResult.Payout(payout.getKey(), payout.getValue()));
+                double deviation = payout.getKey() - expected;
+                variance += payout.getValue() * deviation * deviation;
+                max = Math.max(max, payout.getKey());
+            }
+            return new AnalysisResult(bettingAmount, expected, expected / bettingAmount, hitRate, variance, max, payouts);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof StateLimitExceeded) {
+                throw new IllegalStateException("The hit rate needs more than " + maxStates + " states; raise --max-states");
+            }
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The states before the first cell: no bonus drop, one or two pending, each with probability 1/3.
+     */
+    private static int[] initialFlags() {
+        return new int[]{0, PENDING_FIRST, PENDING_FIRST | PENDING_SECOND};
+    }
+
+    /**
+     * This method computes the expected value of {@code a} times one standard symbol's win factor: its
+     * combination multipliers multiplied together when it has at least one winning combination, zero
+     * otherwise. The state is the pending bonus drops, whether the symbol completed an area, and which
+     * open areas it still fills; each state holds the probability-weighted multipliers by symbol count.
+     */
+    private double expectedWin(int symbolClass) {
+        int aliveOffset = 2;
+        int counts = countCap + 1;
+        Map<State, double[]> states = new HashMap<>();
+        for (int flags : initialFlags()) {
+            byte[] bytes = new byte[aliveOffset + (areaCells.length + 7) / 8];
+            bytes[0] = (byte) flags;
+            states.computeIfAbsent(new State(bytes), state -> new double[counts])[0] += 1.0 / 3;
+        }
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            // Fold the branches into one weight per (flags before, flags after), filled or not
+            double[][] hit = new double[FLAG_STATES][FLAG_STATES];
+            double[][] miss = new double[FLAG_STATES][FLAG_STATES];
+            for (int flags = 0; flags < FLAG_STATES; flags++) {
+                for (Branch branch : branches[cell * FLAG_STATES + flags]) {
+                    double weight = branch.probability();
+                    if (branch.bonus() >= 0 && symbols.impact(branch.bonus()) == SymbolTable.IMPACT_MULTIPLY_REWARD) {
+                        weight *= symbols.multiplier(branch.bonus());
+                    }
+                    (branch.symbolClass() == symbolClass ? hit : miss)[flags][branch.flags()] += weight;
+                }
+            }
+
+            Map<State, double[]> next = new HashMap<>(states.size() * 2);
+            for (Map.Entry<State, double[]> entry : states.entrySet()) {
+                byte[] bytes = entry.getKey().bytes;
+                double[] values = entry.getValue();
+                int flags = bytes[0];
+
+                // The symbol fills the cell, or it does not
+                byte[] filled = bytes.clone();
+                double product = 1.0;
+                for (int area : startingAt[cell]) {
+                    if (areaEnd[area] == cell) {
+                        product *= plan.combinationMultiplier(linearRules[areaRule[area]]);
+                        filled[1] = 1;
+                    } else {
+                        filled[aliveOffset + area / 8] |= (byte) (1 << (area % 8));
+                    }
+                }
+                for (int area : continuingAt[cell]) {
+                    int bit = 1 << (area % 8);
+                    if ((filled[aliveOffset + area / 8] & bit) != 0 && areaEnd[area] == cell) {
+                        filled[aliveOffset + area / 8] &= (byte) ~bit;
+                        product *= plan.combinationMultiplier(linearRules[areaRule[area]]);
+                        filled[1] = 1;
+                    }
+                }
+                byte[] missed = bytes.clone();
+                for (int area : continuingAt[cell]) {
+                    missed[aliveOffset + area / 8] &= (byte) ~(1 << (area % 8));
+                }
+
+                for (int after = 0; after < FLAG_STATES; after++) {
+                    if (hit[flags][after] > 0) {
+                        byte[] key = filled.clone();
+                        key[0] = (byte) after;
+                        double[] target = next.computeIfAbsent(new State(key), state -> new double[counts]);
+                        double weight = hit[flags][after] * product;
+                        for (int n = 0; n < counts; n++) {
+                            target[hasSameRules ? Math.min(n + 1, countCap) : 0] += values[n] * weight;
+                        }
+                    }
+                    if (miss[flags][after] > 0) {
+                        byte[] key = missed.clone();
+                        key[0] = (byte) after;
+                        double[] target = next.computeIfAbsent(new State(key), state -> new double[counts]);
+                        double weight = miss[flags][after];
+                        for (int n = 0; n < counts; n++) {
+                            target[n] += values[n] * weight;
+                        }
+                    }
+                }
+            }
+            states = next;
+        }
+
+        double total = 0.0;
+        for (Map.Entry<State, double[]> entry : states.entrySet()) {
+            boolean lineWin = entry.getKey().bytes[1] != 0;
+            double[] values = entry.getValue();
+            for (int n = 0; n < counts; n++) {
+                if (lineWin || (hasSameRules && n >= minCount)) {
+                    total += sameFactor(n) * values[n];
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return The product of the multipliers of the same_symbols rules a symbol appearing {@code count} times satisfies.
+     */
+    private double sameFactor(int count) {
+        double factor = 1.0;
+        for (int combination = 0; combination < plan.combinationCount(); combination++) {
+            if (plan.isSameSymbols(combination) && count > 0 && count >= plan.requiredCount(combination)) {
+                factor *= plan.combinationMultiplier(combination);
+            }
+        }
+        return factor;
+    }
+
+    /**
+     * This method updates the probability-weighted bonus term {@code b} of a state with the bonus symbol
+     * a cell adds: a multiplier scales what was added before it, an extra bonus adds to it.
+     *
+     * @param bonus The bonus symbol with an impact, or -1.
+     * @param extra The probability-weighted bonus term so far.
+     * @param mass The probability of the state.
+     * @return The updated probability-weighted bonus term.
+     */
+    private double applyExtra(int bonus, double extra, double mass) {
+        if (bonus < 0) {
+            return extra;
+        }
+        return symbols.impact(bonus) == SymbolTable.IMPACT_MULTIPLY_REWARD
+                ? extra * symbols.multiplier(bonus)
+                : extra + symbols.extra(bonus) * mass;
+    }
+
+    /**
+     * @return The expected bonus term {@code E[b]}, which only depends on the bonus symbols landed.
+     */
+    private double expectedExtra() {
+        double[] mass = new double[FLAG_STATES];
+        double[] extra = new double[FLAG_STATES];
+        for (int flags : initialFlags()) {
+            mass[flags] += 1.0 / 3;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            double[] nextMass = new double[FLAG_STATES];
+            double[] nextExtra = new double[FLAG_STATES];
+            for (int flags = 0; flags < FLAG_STATES; flags++) {
+                for (Branch branch : branches[cell * FLAG_STATES + flags]) {
+                    nextMass[branch.flags()] += mass[flags] * branch.probability();
+                    nextExtra[branch.flags()] += applyExtra(branch.bonus(), extra[flags], mass[flags]) * branch.probability();
+                }
+            }
+            mass = nextMass;
+            extra = nextExtra;
+        }
+        return Arrays.stream(extra).sum();
+    }
+
+    /**
+     * This method computes the probability that no standard symbol wins, and the expected bonus term
+     * {@code b} over those boards. The state is the pending bonus drops, every standard symbol's count,
+     * all below the smallest same_symbols count, and for each open area the class that fills it so far,
+     * or 0 once it no longer matters; boards that win are dropped.
+     * <p>
+     * An open area stops mattering when completing it would reach the smallest same_symbols count
+     * anyway, and a board is dropped as soon as the cells left that must show a standard symbol outnumber
+     * the symbols that can still be placed without a win. Both keep the state space small when
+     * same_symbols rules with a low count make wins nearly certain.
+     *
+     * @return The probability of no win, and the expected bonus term over boards without a win.
+     */
+    private double[] noWin() {
+        int areaOffset = 1 + standard.length;
+        Map<State, double[]> states = new HashMap<>();
+        for (int flags : initialFlags()) {
+            byte[] bytes = new byte[areaOffset + areaCells.length];
+            bytes[0] = (byte) flags;
+            states.put(new State(bytes), new double[]{1.0 / 3, 0.0});
+        }
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            Map<State, double[]> next = new HashMap<>(states.size() * 2);
+            for (Map.Entry<State, double[]> entry : states.entrySet()) {
+                byte[] bytes = entry.getKey().bytes;
+                double mass = entry.getValue()[0];
+                double extra = entry.getValue()[1];
+                for (Branch branch : branches[cell * FLAG_STATES + bytes[0]]) {
+                    byte[] state = bytes.clone();
+                    state[0] = (byte) branch.flags();
+                    if (branch.symbolClass() == blank) {
+                        clearAreas(state, areaOffset, cell);
+                    } else if (!place(state, areaOffset, cell, branch.symbolClass())) {
+                        continue;
+                    }
+                    // A pending drop may still cover one of the remaining cells with a non-standard symbol
+                    if (hasSameRules && certainlyStandardAfter[cell] - Integer.bitCount(branch.flags()) > capacity(state)) {
+                        continue;
+                    }
+                    double[] value = checkLimit(next).computeIfAbsent(new State(state), key -> new double[2]);
+                    value[0] += mass * branch.probability();
+                    value[1] += applyExtra(branch.bonus(), extra, mass) * branch.probability();
+                }
+            }
+            states = next;
+        }
+
+        double[] total = new double[2];
+        for (double[] value : states.values()) {
+            total[0] += value[0];
+            total[1] += value[1];
+        }
+        return total;
+    }
+
+    /**
+     * This method places a standard symbol class on a cell of a no-win state.
+     *
+     * @return Whether the board still has no win.
+     */
+    private boolean place(byte[] state, int areaOffset, int cell, int symbolClass) {
+        int count = 0;
+        if (hasSameRules) {
+            count = (state[1 + symbolClass] & 0xFF) + 1;
+            if (count >= minCount) {
+                return false;
+            }
+            state[1 + symbolClass] = (byte) count;
+        }
+        byte filled = (byte) (symbolClass + 1);
+        for (int area : startingAt[cell]) {
+            if (areaEnd[area] == cell) {
+                return false;
+            }
+            boolean matters = !hasSameRules || count + remainingAfter(area, cell) < minCount;
+            state[areaOffset + area] = matters ? filled : 0;
+        }
+        for (int area : continuingAt[cell]) {
+            if (state[areaOffset + area] == filled) {
+                if (areaEnd[area] == cell) {
+                    return false;
+                }
+                if (hasSameRules && count + remainingAfter(area, cell) >= minCount) {
+                    state[areaOffset + area] = 0;
+                }
+            } else {
+                state[areaOffset + area] = 0;
+            }
+        }
+        return true;
+    }
+
+    private void clearAreas(byte[] state, int areaOffset, int cell) {
+        for (int area : startingAt[cell]) {
+            state[areaOffset + area] = 0;
+        }
+        for (int area : continuingAt[cell]) {
+            state[areaOffset + area] = 0;
+        }
+    }
+
+    /**
+     * @return How many more standard symbols a no-win state can take before one reaches the smallest same_symbols count.
+     */
+    private int capacity(byte[] state) {
+        int capacity = 0;
+        for (int symbolClass = 0; symbolClass < standard.length; symbolClass++) {
+            capacity += minCount - 1 - (state[1 + symbolClass] & 0xFF);
+        }
+        return capacity;
+    }
+
+    private int remainingAfter(int area, int cell) {
+        return areaCells[area].length - 1 - Arrays.binarySearch(areaCells[area], cell);
+    }
+
+    /**
+     * This method computes the full distribution of the payout. The state is the pending bonus drops,
+     * every standard symbol's count (capped at the largest same_symbols count), how many areas of each
+     * linear rule it completed, for each open area the class that fills it so far, and the bonus symbols
+     * with an impact landed so far, in row-major order.
+     *
+     * @return The probability of each payout, or {@code null} when the program needs too many states.
+     */
+    private Map<Double, Double> payoutDistribution(double bettingAmount) {
+        int countOffset = 1;
+        int completedOffset = countOffset + standard.length;
+        int areaOffset = completedOffset + standard.length * linearRules.length;
+        int bonusOffset = areaOffset + areaCells.length;
+        Map<State, double[]> states = new HashMap<>();
+        for (int flags : initialFlags()) {
+            byte[] bytes = new byte[bonusOffset];
+            bytes[0] = (byte) flags;
+            states.put(new State(bytes), new double[]{1.0 / 3});
+        }
+
+        try {
+            for (int cell = 0; cell < cellCount; cell++) {
+                Map<State, double[]> next = new HashMap<>(states.size() * 2);
+                for (Map.Entry<State, double[]> entry : states.entrySet()) {
+                    byte[] bytes = entry.getKey().bytes;
+                    double mass = entry.getValue()[0];
+                    for (Branch branch : branches[cell * FLAG_STATES + bytes[0]]) {
+                        byte[] state = branch.bonus() >= 0 ? Arrays.copyOf(bytes, bytes.length + 1) : bytes.clone();
+                        state[0] = (byte) branch.flags();
+                        if (branch.bonus() >= 0) {
+                            state[bytes.length] = (byte) branch.bonus();
+                        }
+                        int symbolClass = branch.symbolClass();
+                        if (symbolClass == blank) {
+                            clearAreas(state, areaOffset, cell);
+                        } else {
+                            if (hasSameRules) {
+                                int count = (state[countOffset + symbolClass] & 0xFF) + 1;
+                                state[countOffset + symbolClass] = (byte) Math.min(count, countCap);
+                            }
+                            byte filled = (byte) (symbolClass + 1);
+                            for (int area : startingAt[cell]) {
+                                if (areaEnd[area] == cell) {
+                                    complete(state, completedOffset, symbolClass, area);
+                                } else {
+                                    state[areaOffset + area] = filled;
+                                }
+                            }
+                            for (int area : continuingAt[cell]) {
+                                if (state[areaOffset + area] == filled && areaEnd[area] == cell) {
+                                    complete(state, completedOffset, symbolClass, area);
+                                }
+                                if (state[areaOffset + area] != filled || areaEnd[area] == cell) {
+                                    state[areaOffset + area] = 0;
+                                }
+                            }
+                        }
+                        checkLimit(next).computeIfAbsent(new State(state), key -> new double[1])[0] += mass * branch.probability();
+                    }
+                }
+                states = next;
+            }
+        } catch (StateLimitExceeded e) {
+            return null;
+        }
+
+        // Bonus symbols apply in row-major order, only to boards that pay
+        Map<Double, Double> payouts = new HashMap<>();
+        for (Map.Entry<State, double[]> entry : states.entrySet()) {
+            byte[] state = entry.getKey().bytes;
+            double payout = reward(state, countOffset, completedOffset, bettingAmount);
+            if (payout > 0) {
+                for (int i = bonusOffset; i < state.length; i++) {
+                    payout = symbols.impact(state[i]) == SymbolTable.IMPACT_MULTIPLY_REWARD
+                            ? payout * symbols.multiplier(state[i])
+                            : payout + symbols.extra(state[i]);
+                }
+            }
+            payouts.merge(payout, entry.getValue()[0], Double::sum);
+        }
+        return payouts;
+    }
+
+    private void complete(byte[] state, int completedOffset, int symbolClass, int area) {
+        int index = completedOffset + symbolClass * linearRules.length + areaRule[area];
+        int completed = (state[index] & 0xFF) + 1;
+        if (completed > 0xFF) {
+            throw StateLimitExceeded.INSTANCE;
+        }
+        state[index] = (byte) completed;
+    }
+
+    /**
+     * @return The reward of a final state before bonus symbols, multiplied the same way, combination by
+     *         combination, as {@link WinCombinationPlan#baseReward(SpinEvaluation, double)} does.
+     */
+    private double reward(byte[] state, int countOffset, int completedOffset, double bettingAmount) {
+        double total = 0.0;
+        for (int symbolClass = 0; symbolClass < standard.length; symbolClass++) {
+            int count = state[countOffset + symbolClass] & 0xFF;
+            boolean wins = hasSameRules && count >= minCount;
+            for (int rule = 0; rule < linearRules.length && !wins; rule++) {
+                wins = state[completedOffset + symbolClass * linearRules.length + rule] != 0;
+            }
+            if (!wins) {
+                continue;
+            }
+            double reward = bettingAmount * symbols.multiplier(standard[symbolClass]);
+            for (int combination = 0; combination < plan.combinationCount(); combination++) {
+                if (plan.isSameSymbols(combination)) {
+                    if (count > 0 && count >= plan.requiredCount(combination)) {
+                        reward *= plan.combinationMultiplier(combination);
+                    }
+                } else if (ruleOfCombination[combination] >= 0) {
+                    int completed = state[completedOffset + symbolClass * linearRules.length + ruleOfCombination[combination]] & 0xFF;
+                    for (int k = 0; k < completed; k++) {
+                        reward *= plan.combinationMultiplier(combination);
+                    }
+                }
+            }
+            total += reward;
+        }
+        return total;
+    }
+
+    private Map<State, double[]> checkLimit(Map<State, double[]> states) {
+        if (states.size() >= maxStates) {
+            throw StateLimitExceeded.INSTANCE;
+        }
+        return states;
+    }
+
+    /**
+     * Stops an analysis that outgrew its state budget. It only steers control flow, so a single instance
+     * without a stack trace or suppressed exceptions is thrown every time.
+     */
+    private static final class StateLimitExceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final StateLimitExceeded INSTANCE = new StateLimitExceeded();
+
+        private StateLimitExceeded() {
+            super("Too many states for an exact analysis", null, false, false);
+        }
+    }
+
+    private static final class State {
+        private final byte[] bytes;
+        private final int hash;
+
+        State(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State state && hash == state.hash && Arrays.equals(bytes, state.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.game.services;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The winning combinations of every possible layout of a small board, enumerated once so that evaluating a
+ * board becomes a table lookup.
+ * <p>
+ * Whether a combination wins only depends on which standard symbol each cell holds, or on the cell holding
+ * none: bonus symbols, MISS and unknown symbols all break lines and are never counted alike. Each cell is
+ * therefore one digit of a mixed-radix number, the index of its standard symbol or one more digit for any
+ * other symbol, and the board's number indexes the table. Distinct layouts win in far fewer distinct ways,
+ * so the table holds the number of an outcome, and each outcome the hit counts of one evaluation. The
+ * reward of an outcome is still calculated from its hits by {@link WinCombinationPlan#baseReward}, and the
+ * bonus symbols are applied after, so results are exactly those of the plan's own evaluation.
+ * <p>
+ * Tables are built in parallel, and may be cached in a file named after the configuration version. A cached
+ * table is looked up in the mapped file itself, so it costs no heap and its pages are shared by every
+ * process that maps it.
+ */
+public final class PayoutTable {
+    static final int MAGIC = 0x42545950;  // "PYTB" in little-endian
+    static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final WinCombinationPlan plan;
+    private final int cells;
+    private final int radix;
+    private final int[] digits;
+    private final CharBuffer layouts;
+    private final SpinEvaluation[] outcomes;
+
+    /**
+     * How payout tables are built.
+     *
+     * @param maxBytes The largest table to build; configurations with more layouts are evaluated as usual.
+     * @param cacheDirectory Where to keep built tables, or {@code null} to build them every time.
+     * @param threads The number of threads enumerating layouts.
+     * @param log Where to warn about cache files that cannot be read or written.
+     */
+    public record Options(long maxBytes, Path cacheDirectory, int threads, PrintStream log) { }
+
+    /**
+     * @param layouts The outcome of every layout: a heap buffer when built, the mapped cache file when loaded.
+     */
+    private PayoutTable(WinCombinationPlan plan, int cells, CharBuffer layouts, SpinEvaluation[] outcomes) {
+        this.plan = plan;
+        this.cells = cells;
+        this.digits = digits(plan);
+        this.radix = plan.standardSymbols().length + 1;
+        this.layouts = layouts;
+        this.outcomes = outcomes;
+    }
+
+    /**
+     * This method builds the table of a plan, or loads it from the cache.
+     *
+     * @param plan The compiled win combinations.
+     * @param cells The number of cells of the board.
+     * @param version The version of the configuration, which names the cache file, or {@code null} to not cache.
+     * @param options The memory budget, cache and threads.
+     * @return The table, or {@code null} when it would not fit the budget.
+     */
+    public static PayoutTable create(WinCombinationPlan plan, int cells, String version, Options options) {
+        // Step 1: Size the table, one char per layout
+        long layoutCount = layoutCount(plan.standardSymbols().length + 1, cells);
+        if (layoutCount < 0 || 2 * layoutCount > options.maxBytes()) {
+            return null;
+        }
+
+        // Step 2: Load it, or build it and save it for next time
+        Path file = options.cacheDirectory() != null && version != null
+                ? options.cacheDirectory().resolve("payout-table-" + version + ".bin") : null;
+        if (file != null && Files.exists(file)) {
+            try {
+                PayoutTable table = load(file, plan, cells, (int) layoutCount);
+                if (table != null) {
+                    return table;
+                }
+            } catch (IOException | RuntimeException e) {
+                options.log().println("Warning: Ignoring payout table " + file + ": " + e.getMessage());
+            }
+        }
+        PayoutTable table = build(plan, cells, (int) layoutCount, options.threads());
+        if (table != null && file != null) {
+            try {
+                table.save(file);
+            } catch (IOException e) {
+                options.log().println("Warning: Cannot save payout table " + file + ": " + e.getMessage());
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return The number of layouts, or -1 when there are too many to index with an int.
+     */
+    private static long layoutCount(int radix, int cells) {
+        long count = 1;
+        for (int cell = 0; cell < cells; cell++) {
+            count *= radix;
+            if (count > Integer.MAX_VALUE - 8) {
+                return -1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return For each symbol ID, its digit: the index of a standard symbol, or the last digit for any other.
+     */
+    private static int[] digits(WinCombinationPlan plan) {
+        int[] standard = plan.standardSymbols();
+        int[] digits = new int[plan.symbols().size()];
+        Arrays.fill(digits, standard.length);
+        for (int digit = 0; digit < standard.length; digit++) {
+            digits[standard[digit]] = digit;
+        }
+        return digits;
+    }
+
+    /**
+     * This method evaluates a board by looking its layout up.
+     *
+     * @param board The board, one symbol ID per cell in row-major order.
+     * @return The winning combinations of the board, or {@code null} when the board is not of the table's size.
+     */
+    SpinEvaluation evaluate(byte[] board) {
+        if (board.length != cells) {
+            return null;
+        }
+        int layout = 0;
+        for (byte symbol : board) {
+            layout = layout * radix + digits[symbol];
+        }
+        return new SpinEvaluation(board, outcomes[layouts.get(layout)]);
+    }
+
+    private record Chunk(int from, int to, List<SpinEvaluation> outcomes) { }
+
+    /**
+     * This method enumerates every layout in parallel. Each chunk of layouts numbers the outcomes it meets on
+     * its own; the chunks' outcomes are then merged into one dictionary and the chunks renumbered.
+     *
+     * @return The table, or {@code null} when the layouts have more outcomes than a char can number.
+     */
+    private static PayoutTable build(WinCombinationPlan plan, int cells, int layoutCount, int threads) {
+        char[] layouts = new char[layoutCount];
+        int chunkCount = Math.max(1, Math.min(layoutCount, Math.max(1, threads) * CHUNKS_PER_THREAD));
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunkCount)));
+        try {
+            // Step 1: Evaluate the chunks
+            List<Future<Chunk>> futures = new ArrayList<>();
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int from = (int) ((long) layoutCount * chunk / chunkCount);
+                int to = (int) ((long) layoutCount * (chunk + 1) / chunkCount);
+                futures.add(pool.submit(() -> enumerate(plan, cells, layouts, from, to)));
+            }
+
+            // Step 2: Merge their outcomes, the losing one first
+            Map<OutcomeKey, Character> dictionary = new HashMap<>();
+            List<SpinEvaluation> outcomes = new ArrayList<>();
+            SpinEvaluation losing = losing(plan);
+            dictionary.put(new OutcomeKey(losing.hitCounts()), (char) 0);
+            outcomes.add(losing);
+            for (Future<Chunk> future : futures) {
+                Chunk chunk = future.get();
+                if (chunk == null) {
+                    return null;
+                }
+                char[] renumbered = new char[chunk.outcomes().size()];
+                for (int local = 0; local < renumbered.length; local++) {
+                    SpinEvaluation outcome = chunk.outcomes().get(local);
+                    Character number = dictionary.get(new OutcomeKey(outcome.hitCounts()));
+                    if (number == null) {
+                        if (outcomes.size() > Character.MAX_VALUE) {
+                            return null;
+                        }
+                        number = (char) outcomes.size();
+                        dictionary.put(new OutcomeKey(outcome.hitCounts()), number);
+                        outcomes.add(outcome);
+                    }
+                    renumbered[local] = number;
+                }
+                for (int layout = chunk.from(); layout < chunk.to(); layout++) {
+                    layouts[layout] = renumbered[layouts[layout]];
+                }
+            }
+            return new PayoutTable(plan, cells, CharBuffer.wrap(layouts), outcomes.toArray(new SpinEvaluation[0]));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the payout table", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot build the payout table", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * This method evaluates a range of layouts, stepping through them like an odometer, the last cell fastest.
+     *
+     * @return The chunk with its own outcomes, the losing one first, or {@code null} when there are too many.
+     */
+    private static Chunk enumerate(WinCombinationPlan plan, int cells, char[] layouts, int from, int to) {
+        int[] standard = plan.standardSymbols();
+        int radix = standard.length + 1;
+        byte other = (byte) plan.symbols().unknownId();
+        int[] digits = new int[cells];
+        byte[] board = new byte[cells];
+        int rest = from;
+        for (int cell = cells - 1; cell >= 0; cell--) {
+            digits[cell] = rest % radix;
+            rest /= radix;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            board[cell] = digits[cell] < standard.length ? (byte) standard[digits[cell]] : other;
+        }
+
+        Map<OutcomeKey, Character> dictionary = new HashMap<>();
+        List<SpinEvaluation> outcomes = new ArrayList<>();
+        outcomes.add(losing(plan));
+        for (int layout = from; layout < to; layout++) {
+            // Step 1: Number the layout's outcome
+            SpinEvaluation evaluation = plan.evaluate(board);
+            if (evaluation.isWinning()) {
+                OutcomeKey key = new OutcomeKey(evaluation.hitCounts());
+                Character number = dictionary.get(key);
+                if (number == null) {
+                    if (outcomes.size() > Character.MAX_VALUE) {
+                        return null;
+                    }
+                    number = (char) outcomes.size();
+                    dictionary.put(key, number);
+                    outcomes.add(evaluation);
+                }
+                layouts[layout] = number;
+            }
+
+            // Step 2: Step to the next layout
+            for (int cell = cells - 1; cell >= 0; cell--) {
+                if (++digits[cell] < radix) {
+                    board[cell] = digits[cell] < standard.length ? (byte) standard[digits[cell]] : other;
+                    break;
+                }
+                digits[cell] = 0;
+                board[cell] = standard.length > 0 ? (byte) standard[0] : other;
+            }
+        }
+        return new Chunk(from, to, outcomes);
+    }
+
+    private static SpinEvaluation losing(WinCombinationPlan plan) {
+        return new SpinEvaluation(plan, new byte[0], plan.symbols().size(), plan.combinationCount());
+    }
+
+    /**
+     * The hit counts of an outcome as a map key.
+     */
+    private record OutcomeKey(int[] hits) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof OutcomeKey key && Arrays.equals(hits, key.hits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(hits);
+        }
+    }
+
+    /**
+     * This method writes the table to a file: a header, the hit counts of every outcome, then the outcome
+     * of every layout, all little-endian. The file is written aside and moved into place.
+     */
+    private void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        int hitCount = plan.symbols().size() * plan.combinationCount();
+        long size = HEADER_BYTES + 4L * hitCount * outcomes.length + 2L * layouts.limit();
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), "payout-table-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(FORMAT).putInt(radix).putInt(cells)
+                        .putInt(plan.symbols().size()).putInt(plan.combinationCount()).putInt(outcomes.length)
+                        .putInt(layouts.limit());
+                buffer.position(HEADER_BYTES);
+                for (SpinEvaluation outcome : outcomes) {
+                    buffer.asIntBuffer().put(outcome.hitCounts());
+                    buffer.position(buffer.position() + 4 * hitCount);
+                }
+                buffer.asCharBuffer().put(layouts.duplicate());
+                buffer.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * This method reads a table written by {@link #save(Path)}. The outcomes are rebuilt on the heap; the
+     * layouts stay in the mapping, which outlives the channel.
+     *
+     * @return The table, or {@code null} when the file was written for another board or plan.
+     */
+    private static PayoutTable load(Path file, WinCombinationPlan plan, int cells, int layoutCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int symbolCount = plan.symbols().size();
+            int combinationCount = plan.combinationCount();
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT
+                    || buffer.getInt(8) != plan.standardSymbols().length + 1 || buffer.getInt(12) != cells
+                    || buffer.getInt(16) != symbolCount || buffer.getInt(20) != combinationCount
+                    || buffer.getInt(28) != layoutCount) {
+                return null;
+            }
+            int outcomeCount = buffer.getInt(24);
+            int hitCount = symbolCount * combinationCount;
+            if (outcomeCount < 1 || outcomeCount > Character.MAX_VALUE + 1
+                    || buffer.limit() != HEADER_BYTES + 4L * hitCount * outcomeCount + 2L * layoutCount) {
+                return null;
+            }
+
+            // Rebuild each outcome by hitting a fresh evaluation as often as recorded
+            SpinEvaluation[] outcomes = new SpinEvaluation[outcomeCount];
+            int position = HEADER_BYTES;
+            for (int outcome = 0; outcome < outcomeCount; outcome++) {
+                outcomes[outcome] = losing(plan);
+                for (int symbol = 0; symbol < symbolCount; symbol++) {
+                    for (int combination = 0; combination < combinationCount; combination++, position += 4) {
+                        for (int k = buffer.getInt(position); k > 0; k--) {
+                            outcomes[outcome].hit(symbol, combination);
+                        }
+                    }
+                }
+            }
+            CharBuffer layouts = buffer.position(position).asCharBuffer();
+            for (int layout = 0; layout < layoutCount; layout++) {
+                if (layouts.get(layout) >= outcomeCount) {
+                    return null;
+                }
+            }
+            return new PayoutTable(plan, cells, layouts, outcomes);
+        }
+    }
+
+    /**
+     * @return The number of layouts in the table.
+     */
+    public int layoutCount() { return layouts.limit(); }
+
+    /**
+     * @return The number of distinct outcomes the layouts have, the losing one included.
+     */
+    public int outcomeCount() { return outcomes.length; }
+
+    /**
+     * @return The approximate heap footprint of the table; layouts looked up in a mapped file take none.
+     */
+    public long estimatedBytes() {
+        return 64 + (layouts.isDirect() ? 0 : 2L * layouts.limit())
+                + (64 + 4L * plan.symbols().size() * (plan.combinationCount() + 1)) * outcomes.length;
+    }
+}
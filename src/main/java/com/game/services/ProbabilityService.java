@@ -4,29 +4,111 @@ package com.game.services;
 import com.game.models.GameConfig;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 public class ProbabilityService {
-    private final GameConfig config;
-    private final Map<String, Integer> bonusSymbols;
+    private final SymbolTable symbols;
+    private final int columns;
+    private final AliasTable[] cellTables;
+    private final AliasTable bonusTable;
 
     public ProbabilityService(GameConfig config) {
-        this.config = config;
-        this.bonusSymbols = config.getProbabilities().getBonusSymbols().getSymbols();
+        this(config, SymbolTable.compile(config));
+    }
+
+    public ProbabilityService(GameConfig config, SymbolTable symbols) {
+        this.symbols = symbols;
+        this.columns = config.getColumns();
+        this.cellTables = compileCellTables(config);
+        this.bonusTable = compileTable(config.getProbabilities().getBonusSymbols().getSymbols());
     }
 
     public String getRandomStandardSymbol(int row, int col) {
-        GameConfig.StandardSymbolProbability cellProb = findCellProbability(row, col);
-        if (cellProb == null) {
-            cellProb = config.getProbabilities().getStandardSymbols()[0];
-        }
-        return selectSymbol(cellProb.getSymbols());
+        return symbols.name(sampleStandardSymbol(row * columns + col));
     }
 
     public String getRandomBonusSymbol() {
-        return selectSymbol(bonusSymbols);
+        return symbols.name(sampleBonusSymbol());
+    }
+
+    /**
+     * @param cell The row-major index of the cell.
+     * @return The ID of a standard symbol drawn with the cell's weights.
+     */
+    public int sampleStandardSymbol(int cell) {
+        return sampleStandardSymbol(cell, ThreadLocalRandom.current());
+    }
+
+    /**
+     * @param cell The row-major index of the cell.
+     * @param random The random source to draw from.
+     * @return The ID of a standard symbol drawn with the cell's weights.
+     */
+    public int sampleStandardSymbol(int cell, RandomGenerator random) {
+        return cellTables[cell].sample(random);
+    }
+
+    /**
+     * @return The ID of a bonus symbol drawn with the bonus weights.
+     */
+    public int sampleBonusSymbol() {
+        return sampleBonusSymbol(ThreadLocalRandom.current());
+    }
+
+    /**
+     * @param random The random source to draw from.
+     * @return The ID of a bonus symbol drawn with the bonus weights.
+     */
+    public int sampleBonusSymbol(RandomGenerator random) {
+        return bonusTable.sample(random);
     }
 
-    private GameConfig.StandardSymbolProbability findCellProbability(int row, int col) {
-        for (GameConfig.StandardSymbolProbability prob : config.getProbabilities().getStandardSymbols()) {
+    AliasTable cellTable(int cell) { return cellTables[cell]; }
+    AliasTable bonusTable() { return bonusTable; }
+
+    /**
+     * @return The approximate heap footprint of the alias tables, counting shared tables once.
+     */
+    long estimatedBytes() {
+        Set<AliasTable> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(Arrays.asList(cellTables));
+        distinct.add(bonusTable);
+        long bytes = 16 + 8L * cellTables.length;
+        for (AliasTable table : distinct) {
+            bytes += table.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * This method resolves the standard symbol weights of every cell once, so that sampling never has to
+     * search the configuration. Cells without their own entry fall back to the first entry of
+     * {@code standard_symbols}, and cells sharing an entry share its alias table.
+     *
+     * @param config The game configuration holding the per-cell weights.
+     * @return One alias table per cell, indexed by {@code row * columns + column}.
+     */
+    private AliasTable[] compileCellTables(GameConfig config) {
+        GameConfig.StandardSymbolProbability[] probabilities = config.getProbabilities().getStandardSymbols();
+        Map<GameConfig.StandardSymbolProbability, AliasTable> compiled = new IdentityHashMap<>();
+        AliasTable[] tables = new AliasTable[config.getRows() * config.getColumns()];
+
+        for (int row = 0; row < config.getRows(); row++) {
+            for (int col = 0; col < config.getColumns(); col++) {
+                GameConfig.StandardSymbolProbability cellProb = findCellProbability(probabilities, row, col);
+                if (cellProb == null) {
+                    cellProb = probabilities[0];
+                }
+                tables[row * columns + col] = compiled.computeIfAbsent(cellProb, prob -> compileTable(prob.getSymbols()));
+            }
+        }
+        return tables;
+    }
+
+    private GameConfig.StandardSymbolProbability findCellProbability(GameConfig.StandardSymbolProbability[] probabilities,
+                                                                     int row, int col) {
+        for (GameConfig.StandardSymbolProbability prob : probabilities) {
             if (prob.getRow() == row && prob.getColumn() == col) {
                 return prob;
             }
@@ -34,17 +116,15 @@ public class ProbabilityService {
         return null;
     }
 
-    private String selectSymbol(Map<String, Integer> symbolWeights) {
-        int total = symbolWeights.values().stream().mapToInt(Integer::intValue).sum();
-        double random = Math.random() * total;
-        double accumulated = 0.0;
-
+    private AliasTable compileTable(Map<String, Integer> symbolWeights) {
+        int[] outcomes = new int[symbolWeights.size()];
+        int[] weights = new int[symbolWeights.size()];
+        int i = 0;
         for (Map.Entry<String, Integer> entry : symbolWeights.entrySet()) {
-            accumulated += entry.getValue();
-            if (random < accumulated) {
-                return entry.getKey();
-            }
+            outcomes[i] = symbols.idOf(entry.getKey());
+            weights[i] = entry.getValue();
+            i++;
         }
-        return symbolWeights.keySet().iterator().next();
+        return new AliasTable(outcomes, weights);
     }
 }
@@ -0,0 +1,53 @@
+package com.game.services;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Where the random decisions of spins come from.
+ * <p>
+ * Every source draws from the calling thread's own generator, so threads never contend. A seeding source
+ * first draws a seed for every spin and plays the spin from a generator created from that seed alone, so
+ * the spin can be replayed with {@link GameEngine#play(double, long)} on the same configuration.
+ */
+public interface RandomSource {
+
+    /**
+     * @return Whether every spin is played from its own seed, which its result then carries.
+     */
+    boolean seedsSpins();
+
+    /**
+     * @return The seed of the next spin on the calling thread. Only called when {@link #seedsSpins()}.
+     */
+    long nextSeed();
+
+    /**
+     * @return The calling thread's generator, for spins that are not seeded. Never shared between threads.
+     */
+    RandomGenerator generator();
+
+    /**
+     * This method creates the generator a seeded spin is played from.
+     *
+     * @param seed The seed of the spin.
+     * @return A generator that always draws the same values for the same seed.
+     */
+    static RandomGenerator forSeed(long seed) {
+        return new SplitMix64(seed);
+    }
+
+    /**
+     * @return A source that plays every spin straight from {@link ThreadLocalRandom}, the fastest option.
+     */
+    static RandomSource threadLocal() {
+        return ThreadLocalRandomSource.UNSEEDED;
+    }
+
+    /**
+     * @return A source that draws a seed for every spin from {@link ThreadLocalRandom}.
+     */
+    static RandomSource seeded() {
+        return ThreadLocalRandomSource.SEEDED;
+    }
+}
@@ -0,0 +1,15 @@
+package com.game.services;
+
+/**
+ * Counts symbols one cell at a time.
+ */
+enum ScalarSymbolCounter implements SymbolCounter {
+    INSTANCE;
+
+    @Override
+    public void count(byte[] board, int[] counts) {
+        for (byte symbol : board) {
+            counts[symbol]++;
+        }
+    }
+}
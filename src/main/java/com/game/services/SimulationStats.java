@@ -0,0 +1,122 @@
+package com.game.services;
+
+import com.game.models.SimulationResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mergeable statistics over a run of spins.
+ * <p>
+ * Each worker fills its own instance and instances are merged afterwards. The mean and variance of the
+ * reward are kept with Welford's update and merged with Chan's formula, so merging the same instances in
+ * the same order always gives the same totals, bit for bit.
+ */
+public final class SimulationStats {
+    private final WinCombinationPlan plan;
+    private long spins;
+    private long winningSpins;
+    private double totalReward;
+    private double mean;
+    private double squaredDeviations;
+    private double maxReward;
+    private final long[] combinationHits;
+    private final long[] bonusSymbolHits;
+
+    public SimulationStats(WinCombinationPlan plan) {
+        this.plan = plan;
+        this.combinationHits = new long[plan.combinationCount()];
+        this.bonusSymbolHits = new long[plan.symbols().size()];
+    }
+
+    /**
+     * This method records one spin.
+     *
+     * @param board The board of the spin.
+     * @param evaluation The winning combinations of the board.
+     * @param reward The reward paid for the spin.
+     */
+    public void record(byte[] board, SpinEvaluation evaluation, double reward) {
+        spins++;
+        totalReward += reward;
+        double delta = reward - mean;
+        mean += delta / spins;
+        squaredDeviations += delta * (reward - mean);
+        if (reward > maxReward) {
+            maxReward = reward;
+        }
+
+        if (evaluation.isWinning()) {
+            winningSpins++;
+            SymbolTable symbols = plan.symbols();
+            for (int symbol = 0; symbol < symbols.size(); symbol++) {
+                if (!evaluation.isWinning(symbol)) {
+                    continue;
+                }
+                for (int combination = 0; combination < combinationHits.length; combination++) {
+                    combinationHits[combination] += evaluation.hits(symbol, combination);
+                }
+            }
+        }
+        for (byte symbol : board) {
+            if (plan.symbols().isBonus(symbol)) {
+                bonusSymbolHits[symbol]++;
+            }
+        }
+    }
+
+    /**
+     * This method adds the spins of another instance to this one.
+     *
+     * @param other Statistics over a different run of spins with the same plan.
+     */
+    public void merge(SimulationStats other) {
+        if (other.spins == 0) {
+            return;
+        }
+        long combined = spins + other.spins;
+        double delta = other.mean - mean;
+        squaredDeviations += other.squaredDeviations + delta * delta * ((double) spins * other.spins / combined);
+        mean += delta * other.spins / combined;
+        spins = combined;
+        winningSpins += other.winningSpins;
+        totalReward += other.totalReward;
+        maxReward = Math.max(maxReward, other.maxReward);
+        for (int i = 0; i < combinationHits.length; i++) {
+            combinationHits[i] += other.combinationHits[i];
+        }
+        for (int i = 0; i < bonusSymbolHits.length; i++) {
+            bonusSymbolHits[i] += other.bonusSymbolHits[i];
+        }
+    }
+
+    /**
+     * This method summarizes the statistics.
+     *
+     * @param seed The master seed of the run.
+     * @param bettingAmount The amount bet on every spin.
+     * @return The report of the run.
+     */
+    public SimulationResult toResult(long seed, double bettingAmount) {
+        Map<String, Long> combinations = new LinkedHashMap<>();
+        for (int i = 0; i < combinationHits.length; i++) {
+            combinations.put(plan.combinationName(i), combinationHits[i]);
+        }
+        Map<String, Long> bonusSymbols = new LinkedHashMap<>();
+        SymbolTable symbols = plan.symbols();
+        for (int id = 0; id < symbols.size(); id++) {
+            if (symbols.isBonus(id)) {
+                bonusSymbols.put(symbols.name(id), bonusSymbolHits[id]);
+            }
+        }
+
+        double totalBet = bettingAmount * spins;
+        return new SimulationResult(seed, spins, bettingAmount, totalBet, totalReward,
+                totalBet > 0 ? totalReward / totalBet : 0.0,
+                spins > 0 ? (double) winningSpins / spins : 0.0,
+                spins > 1 ? squaredDeviations / (spins - 1) : 0.0,
+                maxReward, combinations, bonusSymbols);
+    }
+
+    public long spins() { return spins; }
+}
@@ -0,0 +1,79 @@
+package com.game.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Winning combinations found on one board, as produced by {@link WinCombinationPlan#evaluate(byte[])}.
+ * <p>
+ * Hits are counted per symbol ID and combination index. A same_symbols combination hits a symbol at most
+ * once, a linear_symbols combination once per covered area, which is how many times its name appears in
+ * {@code applied_winning_combinations}. The map form is only built when {@link #get()} is called.
+ */
+public final class SpinEvaluation implements Supplier<Map<String, List<String>>> {
+    private final WinCombinationPlan plan;
+    private final byte[] board;
+    private final int combinationCount;
+    private final int[] hits;
+    private final int[] symbolHits;
+    private int winningSymbols;
+
+    SpinEvaluation(WinCombinationPlan plan, byte[] board, int symbolCount, int combinationCount) {
+        this.plan = plan;
+        this.board = board;
+        this.combinationCount = combinationCount;
+        this.hits = new int[symbolCount * combinationCount];
+        this.symbolHits = new int[symbolCount];
+    }
+
+    /**
+     * Creates the evaluation of a board that wins exactly as another one did, sharing its counts; neither
+     * may be hit again.
+     */
+    SpinEvaluation(byte[] board, SpinEvaluation outcome) {
+        this.plan = outcome.plan;
+        this.board = board;
+        this.combinationCount = outcome.combinationCount;
+        this.hits = outcome.hits;
+        this.symbolHits = outcome.symbolHits;
+        this.winningSymbols = outcome.winningSymbols;
+    }
+
+    void hit(int symbol, int combination) {
+        hits[symbol * combinationCount + combination]++;
+        if (symbolHits[symbol]++ == 0) {
+            winningSymbols++;
+        }
+    }
+
+    /**
+     * @return How many times the combination applies to the symbol.
+     */
+    public int hits(int symbol, int combination) { return hits[symbol * combinationCount + combination]; }
+
+    /**
+     * @return Whether the symbol has at least one winning combination.
+     */
+    public boolean isWinning(int symbol) { return symbolHits[symbol] > 0; }
+
+    public boolean isWinning() { return winningSymbols > 0; }
+
+    /**
+     * @return The hit counts of every symbol and combination, indexed by {@code symbol * combinations + combination}.
+     *         Callers must not modify it.
+     */
+    int[] hitCounts() { return hits; }
+
+    public int winningSymbolCount() { return winningSymbols; }
+    public WinCombinationPlan plan() { return plan; }
+    public byte[] board() { return board; }
+
+    /**
+     * @return The winning combinations in the {@code applied_winning_combinations} map form.
+     */
+    @Override
+    public Map<String, List<String>> get() {
+        return plan.toMap(this);
+    }
+}
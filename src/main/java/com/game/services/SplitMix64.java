@@ -0,0 +1,77 @@
+package com.game.services;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The SplitMix64 generator, written out here so that a seed replays the same spin whatever the JDK.
+ * <p>
+ * Every method the game draws with is implemented in this class instead of inheriting the defaults of
+ * {@link RandomGenerator}, whose bounded algorithms the JDK is free to change. It is a single {@code long}
+ * of state, so creating one per spin is cheap. Not thread-safe.
+ */
+final class SplitMix64 implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * This method draws uniformly from {@code [0, bound)}, rejecting the few values that would bias the
+     * result towards small numbers.
+     */
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = nextInt() >>> 1;
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = nextInt() >>> 1) {
+            // Retry the biased top range
+        }
+        return r;
+    }
+
+    /**
+     * Same as {@link #nextInt(int)} for {@code long} bounds.
+     */
+    @Override
+    public long nextLong(long bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long r = nextLong();
+        long m = bound - 1;
+        if ((bound & m) == 0L) {
+            return r & m;
+        }
+        for (long u = r >>> 1; u + m - (r = u % bound) < 0L; u = nextLong() >>> 1) {
+            // Retry the biased top range
+        }
+        return r;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,44 @@
+package com.game.services;
+
+/**
+ * Counts how many cells of a board hold each symbol, the histogram every same_symbols rule is checked
+ * against.
+ */
+public interface SymbolCounter {
+
+    /**
+     * This method adds the symbol counts of a board to a histogram.
+     *
+     * @param board The board, one symbol ID per cell.
+     * @param counts The histogram, indexed by symbol ID; it must have room for every ID on the board.
+     */
+    void count(byte[] board, int[] counts);
+
+    /**
+     * @return The counter that walks the board one cell at a time.
+     */
+    static SymbolCounter scalar() {
+        return ScalarSymbolCounter.INSTANCE;
+    }
+
+    /**
+     * @return The counter that compares whole vectors of cells at once, or {@code null} when the
+     *         {@code jdk.incubator.vector} module is not enabled ({@code --add-modules jdk.incubator.vector}).
+     */
+    static SymbolCounter vector() {
+        return VectorSupport.counter();
+    }
+
+    /**
+     * This method picks the faster counter for boards of a given shape: the vector one when it is available
+     * and the board is large enough, for the number of symbols, to make up for a pass per symbol.
+     *
+     * @param cells The number of cells of the boards.
+     * @param symbolCount The number of symbol IDs.
+     * @return The counter to use.
+     */
+    static SymbolCounter forBoards(int cells, int symbolCount) {
+        SymbolCounter vector = vector();
+        return vector != null && VectorSupport.pays(cells, symbolCount) ? vector : scalar();
+    }
+}
@@ -0,0 +1,185 @@
+package com.game.services;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.game.models.GameConfig;
+import com.game.models.Symbol;
+
+import java.util.*;
+
+/**
+ * Interned view of the configured symbols.
+ * <p>
+ * Every symbol name that can appear on a board is mapped to a small integer ID once, when the engine is
+ * built, and its settings are kept in primitive arrays indexed by that ID. Boards are then plain
+ * {@code byte[]} arrays in row-major order, so the spin pipeline never has to hash a symbol name.
+ * <p>
+ * IDs are assigned in the order of the {@code symbols} map, followed by any name that only appears in
+ * {@code probabilities}. One extra ID, {@link #unknownId()}, stands for any name the config does not
+ * know; it behaves like a symbol with no configuration at all.
+ */
+public final class SymbolTable {
+    public static final byte TYPE_NONE = 0;
+    public static final byte TYPE_STANDARD = 1;
+    public static final byte TYPE_BONUS = 2;
+
+    public static final byte IMPACT_NONE = 0;
+    public static final byte IMPACT_MULTIPLY_REWARD = 1;
+    public static final byte IMPACT_EXTRA_BONUS = 2;
+
+    /** Board cells are stored as bytes, so IDs (including the unknown one) must stay below this. */
+    public static final int MAX_SYMBOLS = Byte.MAX_VALUE;
+
+    private final String[] names;
+    private final byte[] types;
+    private final double[] multipliers;
+    private final byte[] impacts;
+    private final double[] extras;
+    private final boolean[] reportedBonus;
+    private final Map<String, Integer> ids;
+    private final byte[][] quotedNames;
+
+    private SymbolTable(List<String> names, Map<String, Symbol> symbols) {
+        int size = names.size() + 1;
+        if (size > MAX_SYMBOLS) {
+            throw new IllegalArgumentException("Too many symbols: at most " + (MAX_SYMBOLS - 1) + " are supported");
+        }
+        this.names = new String[size];
+        this.types = new byte[size];
+        this.multipliers = new double[size];
+        this.impacts = new byte[size];
+        this.extras = new double[size];
+        this.reportedBonus = new boolean[size];
+        this.ids = new HashMap<>();
+        this.quotedNames = new byte[size][];
+
+        for (int id = 0; id < names.size(); id++) {
+            String name = names.get(id);
+            this.names[id] = name;
+            this.ids.put(name, id);
+            this.quotedNames[id] = quote(name);
+
+            Symbol symbol = symbols.get(name);
+            if (symbol == null) {
+                continue;  // Unconfigured names keep TYPE_NONE and never pay
+            }
+            if ("standard".equals(symbol.getType())) {
+                types[id] = TYPE_STANDARD;
+                multipliers[id] = required(symbol.getRewardMultiplier(), name, "reward_multiplier");
+            } else if ("bonus".equals(symbol.getType())) {
+                types[id] = TYPE_BONUS;
+                reportedBonus[id] = !"MISS".equals(name);
+                if (symbol.getImpact() == null) {
+                    throw new IllegalArgumentException("Bonus symbol " + name + " has no impact");
+                }
+                switch (symbol.getImpact()) {
+                    case "multiply_reward" -> {
+                        impacts[id] = IMPACT_MULTIPLY_REWARD;
+                        multipliers[id] = required(symbol.getRewardMultiplier(), name, "reward_multiplier");
+                    }
+                    case "extra_bonus" -> {
+                        impacts[id] = IMPACT_EXTRA_BONUS;
+                        extras[id] = required(symbol.getExtra(), name, "extra");
+                    }
+                    default -> impacts[id] = IMPACT_NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method interns every symbol of the configuration.
+     *
+     * @param config The game configuration.
+     * @return The symbol table for the configuration.
+     */
+    public static SymbolTable compile(GameConfig config) {
+        Set<String> names = new LinkedHashSet<>();
+        Map<String, Symbol> symbols = config.getSymbols() != null ? config.getSymbols() : Map.of();
+        names.addAll(symbols.keySet());
+
+        GameConfig.Probabilities probabilities = config.getProbabilities();
+        if (probabilities != null) {
+            if (probabilities.getStandardSymbols() != null) {
+                for (GameConfig.StandardSymbolProbability cell : probabilities.getStandardSymbols()) {
+                    names.addAll(cell.getSymbols().keySet());
+                }
+            }
+            if (probabilities.getBonusSymbols() != null) {
+                names.addAll(probabilities.getBonusSymbols().getSymbols().keySet());
+            }
+        }
+        return new SymbolTable(new ArrayList<>(names), symbols);
+    }
+
+    private static double required(Double value, String name, String property) {
+        if (value == null) {
+            throw new IllegalArgumentException("Symbol " + name + " has no " + property);
+        }
+        return value;
+    }
+
+    /**
+     * @return The ID of the named symbol, or {@link #unknownId()} when the config does not know it.
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : unknownId();
+    }
+
+    /**
+     * This method converts a symbol matrix into a row-major board of symbol IDs.
+     *
+     * @param matrix The 2D array representing the game matrix, where each element is a symbol.
+     * @return The board, one byte per cell.
+     */
+    public byte[] toBoard(String[][] matrix) {
+        int columns = matrix.length == 0 ? 0 : matrix[0].length;
+        byte[] board = new byte[matrix.length * columns];
+        for (int row = 0; row < matrix.length; row++) {
+            for (int col = 0; col < columns; col++) {
+                board[row * columns + col] = (byte) idOf(matrix[row][col]);
+            }
+        }
+        return board;
+    }
+
+    public int size() { return names.length; }
+    public int unknownId() { return names.length - 1; }
+    public String name(int id) { return names[id]; }
+    public boolean isStandard(int id) { return types[id] == TYPE_STANDARD; }
+    public boolean isBonus(int id) { return types[id] == TYPE_BONUS; }
+    public byte type(int id) { return types[id]; }
+    public double multiplier(int id) { return multipliers[id]; }
+    public byte impact(int id) { return impacts[id]; }
+    public double extra(int id) { return extras[id]; }
+
+    /**
+     * @return Whether the symbol is listed in {@code applied_bonus_symbol}; every bonus symbol except MISS is.
+     */
+    public boolean isReportedBonus(int id) { return reportedBonus[id]; }
+
+    /**
+     * @return The names indexed by ID; the entry for the unknown ID is {@code null}. Callers must not modify it.
+     */
+    public String[] names() { return names; }
+
+    /**
+     * @return The name of the symbol as a JSON string in UTF-8, quotes included, escaped exactly as Jackson
+     *         escapes it, or {@code null} for the unknown symbol.
+     */
+    public byte[] quotedName(int id) { return quotedNames[id]; }
+
+    static byte[] quote(String value) {
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        byte[] quoted = new byte[escaped.length + 2];
+        quoted[0] = '"';
+        System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+        quoted[quoted.length - 1] = '"';
+        return quoted;
+    }
+
+    /**
+     * @return The approximate heap footprint of the table: each name, its properties and its map entry.
+     */
+    long estimatedBytes() { return 256 + 128L * names.length; }
+}
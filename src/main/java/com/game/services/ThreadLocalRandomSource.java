@@ -0,0 +1,34 @@
+package com.game.services;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The random sources built on {@link ThreadLocalRandom}, see {@link RandomSource#threadLocal()} and
+ * {@link RandomSource#seeded()}.
+ */
+enum ThreadLocalRandomSource implements RandomSource {
+    UNSEEDED(false),
+    SEEDED(true);
+
+    private final boolean seedsSpins;
+
+    ThreadLocalRandomSource(boolean seedsSpins) {
+        this.seedsSpins = seedsSpins;
+    }
+
+    @Override
+    public boolean seedsSpins() {
+        return seedsSpins;
+    }
+
+    @Override
+    public long nextSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    @Override
+    public RandomGenerator generator() {
+        return ThreadLocalRandom.current();
+    }
+}
@@ -0,0 +1,39 @@
+package com.game.services;
+
+/**
+ * Loads the {@link VectorSymbolCounter} only when {@code jdk.incubator.vector} is enabled, so that the
+ * engine runs unchanged without it. Setting the system property {@code game.vector} to {@code false}
+ * keeps the scalar path even with the module enabled.
+ */
+final class VectorSupport {
+    private static final SymbolCounter COUNTER = load();
+    private static final int LANES = COUNTER != null ? VectorSymbolCounter.lanes() : 0;
+
+    private VectorSupport() {
+    }
+
+    private static SymbolCounter load() {
+        if (!Boolean.parseBoolean(System.getProperty("game.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return new VectorSymbolCounter();
+        } catch (LinkageError e) {
+            return null;  // The module is there but this JVM cannot use it
+        }
+    }
+
+    static SymbolCounter counter() {
+        return COUNTER;
+    }
+
+    /**
+     * @return Whether counting boards of this shape with vectors beats counting them cell by cell: there
+     *         must be at least one whole vector of cells, and each vector is compared once per symbol, so
+     *         the symbols must be well under the lanes of a vector.
+     */
+    static boolean pays(int cells, int symbolCount) {
+        return LANES > 0 && cells >= LANES && 2 * symbolCount <= LANES;
+    }
+}
@@ -0,0 +1,34 @@
+package com.game.services;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Counts symbols with the Vector API: each vector of cells is compared with every symbol ID at once, and
+ * the lanes that match are counted. The cells after the last whole vector are counted one at a time.
+ * <p>
+ * This is the only class that refers to {@code jdk.incubator.vector}; {@link VectorSupport} only loads it
+ * when the module is enabled.
+ */
+final class VectorSymbolCounter implements SymbolCounter {
+    static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public void count(byte[] board, int[] counts) {
+        int symbolCount = counts.length;
+        int bound = SPECIES.loopBound(board.length);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            ByteVector cells = ByteVector.fromArray(SPECIES, board, i);
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                counts[symbol] += cells.eq((byte) symbol).trueCount();
+            }
+        }
+        for (int i = bound; i < board.length; i++) {
+            counts[board[i]]++;
+        }
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+}
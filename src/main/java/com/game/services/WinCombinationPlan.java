@@ -0,0 +1,439 @@
+package com.game.services;
+
+import com.game.models.GameConfig;
+import com.game.models.WinCombination;
+
+import java.util.*;
+
+/**
+ * The configured win combinations, compiled once into an evaluation plan.
+ * <p>
+ * Linear areas are resolved from their {@code "row:column"} strings, or generated from the line families
+ * listed in {@code generate}, into arrays of cell indices and into bitmasks over the cells, and all
+ * same_symbols rules share one symbol-count histogram per board. Each board is turned into one bitboard per
+ * symbol, so a line is checked with a single mask test, {@code (bitboard & mask) == mask}, for the symbol
+ * in its first cell, however long it is; boards over 64 cells use one {@code long} per 64 cells. Evaluating
+ * a board therefore does no parsing and builds no collections; the result is a {@link SpinEvaluation} that
+ * reports the same {@code applied_winning_combinations} as the configuration describes.
+ */
+public final class WinCombinationPlan {
+    private static final byte KIND_OTHER = 0;
+    private static final byte KIND_SAME = 1;
+    private static final byte KIND_LINEAR = 2;
+
+    private final SymbolTable symbols;
+    private final String[] names;
+    private final byte[][] quotedNames;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final double[] multipliers;
+    private final byte[] kinds;
+    private final int[][][] areas;
+    private final int[] requiredCountByCombination;
+    private final int[] sameCombinations;
+    private final int[] requiredCounts;
+    private final SymbolCounter counter;
+    private final int[] linearCombinations;
+    private final int words;
+    private final int[] lineCombinations;
+    private final int[] lineFirstCells;
+    private final long[] lineMasks;
+    private final int[] standardSymbols;
+    private final int[] keyOrder;
+
+    /**
+     * This method compiles the win combinations of a configuration.
+     *
+     * @param config The game configuration.
+     * @param symbols The interned symbols of the same configuration.
+     */
+    public WinCombinationPlan(GameConfig config, SymbolTable symbols) {
+        this.symbols = symbols;
+        Map<String, WinCombination> combinations = config.getWinCombinations() != null
+                ? config.getWinCombinations() : Map.of();
+        int count = combinations.size();
+        this.names = new String[count];
+        this.quotedNames = new byte[count][];
+        this.multipliers = new double[count];
+        this.kinds = new byte[count];
+        this.areas = new int[count][][];
+        this.requiredCountByCombination = new int[count];
+
+        List<Integer> same = new ArrayList<>();
+        List<Integer> linear = new ArrayList<>();
+        int index = 0;
+        for (Map.Entry<String, WinCombination> entry : combinations.entrySet()) {
+            WinCombination combination = entry.getValue();
+            names[index] = entry.getKey();
+            quotedNames[index] = SymbolTable.quote(entry.getKey());
+            indices.put(entry.getKey(), index);
+            multipliers[index] = combination.getRewardMultiplier();
+            if (combination.getWhen() == null) {
+                throw new IllegalArgumentException("Win combination " + entry.getKey() + " has no 'when'");
+            }
+            switch (combination.getWhen()) {
+                case "same_symbols" -> {
+                    kinds[index] = KIND_SAME;
+                    requiredCountByCombination[index] = combination.getCount();
+                    same.add(index);
+                }
+                case "linear_symbols" -> {
+                    kinds[index] = KIND_LINEAR;
+                    areas[index] = compileAreas(entry.getKey(), combination, config.getRows(), config.getColumns());
+                    linear.add(index);
+                }
+                default -> { }  // Unsupported conditions never win
+            }
+            index++;
+        }
+
+        this.sameCombinations = same.stream().mapToInt(Integer::intValue).toArray();
+        this.requiredCounts = same.stream().mapToInt(i -> requiredCountByCombination[i]).toArray();
+        this.counter = SymbolCounter.forBoards(config.getRows() * config.getColumns(), symbols.size());
+        this.linearCombinations = linear.stream().mapToInt(Integer::intValue).toArray();
+
+        // Every non-empty linear area becomes a line: the combination, the cell to read the symbol from,
+        // and the mask of its cells
+        this.words = Math.max(1, (config.getRows() * config.getColumns() + 63) / 64);
+        int lineCount = 0;
+        for (int combination : linearCombinations) {
+            for (int[] area : areas[combination]) {
+                lineCount += area.length > 0 ? 1 : 0;
+            }
+        }
+        this.lineCombinations = new int[lineCount];
+        this.lineFirstCells = new int[lineCount];
+        this.lineMasks = new long[lineCount * words];
+        int line = 0;
+        for (int combination : linearCombinations) {
+            for (int[] area : areas[combination]) {
+                if (area.length == 0) {
+                    continue;  // An empty area never wins
+                }
+                lineCombinations[line] = combination;
+                lineFirstCells[line] = area[0];
+                for (int cell : area) {
+                    lineMasks[line * words + (cell >>> 6)] |= 1L << cell;
+                }
+                line++;
+            }
+        }
+
+        int[] standard = new int[symbols.size()];
+        int standardCount = 0;
+        for (int id = 0; id < symbols.size(); id++) {
+            if (symbols.isStandard(id)) {
+                standard[standardCount++] = id;
+            }
+        }
+        this.standardSymbols = Arrays.copyOf(standard, standardCount);
+        this.keyOrder = keyOrder(standardSymbols);
+    }
+
+    /**
+     * This method finds the order a {@link HashMap} keyed by symbol name iterates any set of winning symbols
+     * in, when that order does not depend on the order they were added in: with at most 12 names the table
+     * keeps its 16 buckets, and when no two names share a bucket every subset iterates in the order of the
+     * full set. Filling two maps in opposite orders tells: any shared bucket lists its names reversed.
+     *
+     * @return The standard symbols in map order, or {@code null} when each map has to be built to know it.
+     */
+    private int[] keyOrder(int[] standard) {
+        if (standard.length > 12) {
+            return null;
+        }
+        Map<String, Integer> forward = new HashMap<>();
+        Map<String, Integer> backward = new HashMap<>();
+        for (int i = 0; i < standard.length; i++) {
+            forward.computeIfAbsent(symbols.name(standard[i]), name -> 0);
+            backward.computeIfAbsent(symbols.name(standard[standard.length - 1 - i]), name -> 0);
+        }
+        if (!new ArrayList<>(forward.keySet()).equals(new ArrayList<>(backward.keySet()))) {
+            return null;
+        }
+        int[] order = new int[standard.length];
+        int i = 0;
+        for (String name : forward.keySet()) {
+            order[i++] = symbols.idOf(name);
+        }
+        return order;
+    }
+
+    private static int[][] compileAreas(String name, WinCombination combination, int rows, int columns) {
+        String[][] coveredAreas = combination.getCoveredAreas() != null ? combination.getCoveredAreas() : new String[0][];
+        String[] families = combination.getGenerate() != null ? combination.getGenerate() : new String[0];
+        if (coveredAreas.length == 0 && families.length == 0) {
+            throw new IllegalArgumentException("Win combination " + name + " has no covered_areas");
+        }
+        List<int[]> generated = new ArrayList<>();
+        for (String family : families) {
+            try {
+                generated.addAll(Arrays.asList(PaylineGenerator.generate(family, rows, columns)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Win combination " + name + ": " + e.getMessage());
+            }
+        }
+        int[][] cells = new int[coveredAreas.length + generated.size()][];
+        for (int i = 0; i < generated.size(); i++) {
+            cells[coveredAreas.length + i] = generated.get(i);
+        }
+        for (int area = 0; area < coveredAreas.length; area++) {
+            cells[area] = new int[coveredAreas[area].length];
+            for (int i = 0; i < coveredAreas[area].length; i++) {
+                String coord = coveredAreas[area][i];
+                String[] parts = coord.split(":");
+                int row;
+                int col;
+                try {
+                    row = Integer.parseInt(parts[0]);
+                    col = Integer.parseInt(parts[1]);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Win combination " + name + " has an invalid coordinate: " + coord);
+                }
+                if (parts.length != 2 || row < 0 || row >= rows || col < 0 || col >= columns) {
+                    throw new IllegalArgumentException("Win combination " + name + " has a coordinate outside the board: " + coord);
+                }
+                cells[area][i] = row * columns + col;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * This method checks a board against every win combination.
+     *
+     * @param board The board, one symbol ID per cell in row-major order.
+     * @return The combinations that apply to each symbol.
+     */
+    public SpinEvaluation evaluate(byte[] board) {
+        SpinEvaluation evaluation = new SpinEvaluation(this, board, symbols.size(), names.length);
+
+        // Step 1: One histogram serves every same_symbols rule
+        if (sameCombinations.length > 0) {
+            int[] counts = new int[symbols.size()];
+            counter.count(board, counts);
+            for (int i = 0; i < sameCombinations.length; i++) {
+                for (int symbol : standardSymbols) {
+                    if (counts[symbol] > 0 && counts[symbol] >= requiredCounts[i]) {
+                        evaluation.hit(symbol, sameCombinations[i]);
+                    }
+                }
+            }
+        }
+
+        // Step 2: A line wins when the bitboard of the standard symbol in its first cell covers its mask
+        if (lineCombinations.length > 0) {
+            if (words == 1) {
+                singleWordLines(board, evaluation);
+            } else {
+                long[] bitboards = bitboards(board);
+                for (int line = 0; line < lineCombinations.length; line++) {
+                    int symbol = board[lineFirstCells[line]];
+                    if (symbols.isStandard(symbol) && covers(bitboards, symbol * words, line * words)) {
+                        evaluation.hit(symbol, lineCombinations[line]);
+                    }
+                }
+            }
+        }
+        return evaluation;
+    }
+
+    /**
+     * Same as the general line check, for boards of up to 64 cells, where each bitboard is a single long.
+     */
+    private void singleWordLines(byte[] board, SpinEvaluation evaluation) {
+        long[] bitboards = new long[symbols.size()];
+        int cells = Math.min(board.length, 64);
+        for (int cell = 0; cell < cells; cell++) {
+            bitboards[board[cell]] |= 1L << cell;
+        }
+        for (int line = 0; line < lineCombinations.length; line++) {
+            int symbol = board[lineFirstCells[line]];
+            long mask = lineMasks[line];
+            if ((bitboards[symbol] & mask) == mask && symbols.isStandard(symbol)) {
+                evaluation.hit(symbol, lineCombinations[line]);
+            }
+        }
+    }
+
+    /**
+     * @return For each symbol, {@code words} longs with bit {@code cell} set for every cell that holds it.
+     */
+    private long[] bitboards(byte[] board) {
+        long[] bitboards = new long[symbols.size() * words];
+        int cells = Math.min(board.length, words << 6);  // Lines never cover cells beyond the configured board
+        for (int cell = 0; cell < cells; cell++) {
+            bitboards[board[cell] * words + (cell >>> 6)] |= 1L << cell;
+        }
+        return bitboards;
+    }
+
+    private boolean covers(long[] bitboards, int bitboard, int mask) {
+        for (int word = 0; word < words; word++) {
+            long bits = lineMasks[mask + word];
+            if ((bitboards[bitboard + word] & bits) != bits) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The standard symbol filling every cell of the area, or -1 when there is none.
+     */
+    private int winningSymbol(byte[] board, int[] area) {
+        if (area.length == 0) {
+            return -1;
+        }
+        int symbol = board[area[0]];
+        if (!symbols.isStandard(symbol)) {
+            return -1;
+        }
+        for (int k = 1; k < area.length; k++) {
+            if (board[area[k]] != symbol) {
+                return -1;
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * This method calculates the reward of the winning combinations before bonus symbols are applied. Each
+     * winning symbol pays the betting amount times its own multiplier times the multiplier of every
+     * combination that applies to it. The symbols are summed in the order of {@link #toMap}'s keys, with the
+     * compensated summation of {@code DoubleStream.sum()}, as the original stream over that map did, so that
+     * rewards match it bit for bit at any bet.
+     *
+     * @param evaluation The winning combinations of the board.
+     * @param bettingAmount The amount bet on the game.
+     * @return The reward before bonus symbols.
+     */
+    public double baseReward(SpinEvaluation evaluation, double bettingAmount) {
+        if (!evaluation.isWinning()) {
+            return 0.0;
+        }
+
+        DoubleSummaryStatistics total = new DoubleSummaryStatistics();
+        for (int symbol : keyOrder(evaluation)) {
+            if (!evaluation.isWinning(symbol)) {
+                continue;
+            }
+            double reward = bettingAmount * symbols.multiplier(symbol);
+            for (int combination = 0; combination < names.length; combination++) {
+                for (int k = evaluation.hits(symbol, combination); k > 0; k--) {
+                    reward *= multipliers[combination];
+                }
+            }
+            total.accept(reward);
+        }
+        return total.getSum();
+    }
+
+    /**
+     * @return Symbol IDs in the order {@link #toMap} iterates the winning symbols of the evaluation, possibly
+     *         with symbols that do not win in between. Callers must not modify it.
+     */
+    public int[] keyOrder(SpinEvaluation evaluation) {
+        if (keyOrder != null) {
+            return keyOrder;
+        }
+        Map<String, List<String>> map = toMap(evaluation);
+        int[] order = new int[map.size()];
+        int i = 0;
+        for (String name : map.keySet()) {
+            order[i++] = symbols.idOf(name);
+        }
+        return order;
+    }
+
+    /**
+     * This method builds the {@code applied_winning_combinations} map of an evaluation: for each winning
+     * symbol, the names of its combinations in configuration order, repeated once per covered area that won.
+     * Hits are added in the order the original stream-based check produced them: combinations in
+     * configuration order, same_symbols hits in the iteration order of a map of the board's symbols filled
+     * with {@code computeIfAbsent} in board order, as {@code groupingBy} filled it, and linear hits in
+     * covered-area order.
+     *
+     * @param evaluation The winning combinations of the board.
+     * @return A map where the key is the symbol, and the value is a list of winning combination names for that symbol.
+     */
+    public Map<String, List<String>> toMap(SpinEvaluation evaluation) {
+        Map<String, List<String>> result = new HashMap<>();
+        if (!evaluation.isWinning()) {
+            return result;
+        }
+        byte[] board = evaluation.board();
+        Collection<Integer> boardSymbols = null;
+        for (int combination = 0; combination < names.length; combination++) {
+            if (kinds[combination] == KIND_SAME) {
+                if (boardSymbols == null) {
+                    Map<String, Integer> counted = new HashMap<>();
+                    for (byte symbol : board) {
+                        counted.computeIfAbsent(symbols.name(symbol), name -> (int) symbol);
+                    }
+                    boardSymbols = counted.values();
+                }
+                for (int symbol : boardSymbols) {
+                    if (evaluation.hits(symbol, combination) > 0) {
+                        add(result, symbol, combination);
+                    }
+                }
+            } else if (kinds[combination] == KIND_LINEAR && hitsAnySymbol(evaluation, combination)) {
+                for (int[] area : areas[combination]) {
+                    int symbol = winningSymbol(board, area);
+                    if (symbol >= 0) {
+                        add(result, symbol, combination);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void add(Map<String, List<String>> result, int symbol, int combination) {
+        result.computeIfAbsent(symbols.name(symbol), name -> new ArrayList<>()).add(names[combination]);
+    }
+
+    private boolean hitsAnySymbol(SpinEvaluation evaluation, int combination) {
+        for (int symbol : standardSymbols) {
+            if (evaluation.hits(symbol, combination) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int combinationCount() { return names.length; }
+    public String combinationName(int combination) { return names[combination]; }
+
+    /**
+     * @return The name of the combination as a JSON string in UTF-8, see {@link SymbolTable#quotedName(int)}.
+     */
+    public byte[] quotedCombinationName(int combination) { return quotedNames[combination]; }
+
+    /**
+     * @return The index of the named combination, or -1 when the config does not define it.
+     */
+    public int combinationIndex(String name) { return indices.getOrDefault(name, -1); }
+    public double combinationMultiplier(int combination) { return multipliers[combination]; }
+    boolean isSameSymbols(int combination) { return kinds[combination] == KIND_SAME; }
+    boolean isLinearSymbols(int combination) { return kinds[combination] == KIND_LINEAR; }
+    int requiredCount(int combination) { return requiredCountByCombination[combination]; }
+    int[][] areas(int combination) { return areas[combination]; }
+    int[] standardSymbols() { return standardSymbols.clone(); }
+    public SymbolTable symbols() { return symbols; }
+
+    /**
+     * @return The approximate heap footprint of the plan, not counting its symbol table.
+     */
+    long estimatedBytes() {
+        long bytes = 512 + 128L * names.length;
+        for (int[][] combinationAreas : areas) {
+            if (combinationAreas != null) {
+                for (int[] area : combinationAreas) {
+                    bytes += 16 + 4L * area.length;
+                }
+            }
+        }
+        return bytes;
+    }
+}
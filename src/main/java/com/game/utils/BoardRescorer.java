@@ -0,0 +1,296 @@
+package com.game.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.game.models.GameResult;
+import com.game.models.RecordedBoard;
+import com.game.services.GameEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scores boards recorded outside the game against a configuration, streaming them from a file.
+ * <p>
+ * The file is newline-delimited JSON, one {@link RecordedBoard} per line, such as the lines the game prints;
+ * or, when its name ends in {@code .csv}, comma-separated values under a header. The {@code betting_amount},
+ * {@code reward} and {@code seed} columns of a CSV file are read as those fields, and every other column is
+ * a cell of the board, in row-major order. Each board is written out as the game would have printed its
+ * spin, with the reward the configuration pays; a recorded reward that differs from it is a mismatch.
+ * Records that cannot be scored, such as a board of another shape or with a symbol the configuration does
+ * not know, are rejected and left out of the output.
+ * <p>
+ * Lines are read in chunks that are scored in parallel on a fork-join pool and written out in input order
+ * by {@link OrderedChunks}.
+ */
+public final class BoardRescorer {
+    private static final int CHUNK_LINES = 8192;
+    private static final int MAX_REPORTED_PROBLEMS = 20;
+
+    private final GameEngine engine;
+    private final int threads;
+    private final Double bettingAmount;
+    private final ThreadLocal<GameResultJsonWriter> writers =
+            ThreadLocal.withInitial(() -> new GameResultJsonWriter(1 << 20));
+
+    /**
+     * The outcome of scoring a file.
+     *
+     * @param boards The number of boards scored.
+     * @param checked How many of them had a reward recorded to check.
+     * @param mismatches How many recorded rewards differ from the configuration's.
+     * @param rejected The number of records that could not be scored, left out.
+     */
+    public record Summary(long boards, long checked, long mismatches, long rejected) { }
+
+    private record Chunk(byte[] lines, long boards, long checked, List<String> mismatches, List<String> rejections) { }
+
+    /**
+     * The columns of a CSV file.
+     *
+     * @param width The number of columns.
+     * @param cells The column of each cell, in row-major order.
+     */
+    private record CsvLayout(int width, int[] cells, int bettingAmount, int reward, int seed) { }
+
+    /**
+     * @param engine The engine of the configuration to score the boards with.
+     * @param threads The number of threads scoring chunks.
+     * @param bettingAmount The bet of records that do not carry their own, or {@code null} to reject them.
+     */
+    public BoardRescorer(GameEngine engine, int threads, Double bettingAmount) {
+        this.engine = engine;
+        this.threads = Math.max(1, threads);
+        this.bettingAmount = bettingAmount;
+    }
+
+    /**
+     * This method scores every board of a file.
+     *
+     * @param file The boards, as newline-delimited JSON or, for a {@code .csv} file, CSV.
+     * @param out Receives the scored boards as newline-delimited JSON, in input order.
+     * @param log Receives a line for each mismatch and rejected record, up to a limit.
+     * @return The counts of the file.
+     * @throws IllegalArgumentException If the header of a CSV file does not describe boards of the configuration.
+     */
+    public Summary evaluate(Path file, OutputStream out, PrintStream log) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             OrderedChunks<Chunk, Summary> chunks = new OrderedChunks<>(new ForkJoinPool(threads), threads,
+                     new Summary(0, 0, 0, 0), (chunk, summary) -> write(chunk, out, log, summary))) {
+            // Step 1: Read the header of a CSV file
+            long lineNumber = 0;
+            CsvLayout layout = null;
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                String header = reader.readLine();
+                if (header == null) {
+                    throw new IllegalArgumentException(file + " has no CSV header");
+                }
+                layout = layout(header);
+                lineNumber++;
+            }
+
+            // Step 2: Score the lines chunk by chunk
+            CsvLayout columns = layout;
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            long firstLine = lineNumber + 1;
+            for (String line = reader.readLine(); ; line = reader.readLine()) {
+                if (line != null) {
+                    lines.add(line);
+                    lineNumber++;
+                }
+                if (lines.size() == CHUNK_LINES || (line == null && !lines.isEmpty())) {
+                    List<String> chunk = lines;
+                    long first = firstLine;
+                    chunks.submit(() -> score(chunk, first, columns));
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    firstLine = lineNumber + 1;
+                }
+                if (line == null) {
+                    break;
+                }
+            }
+
+            Summary summary = chunks.finish();
+            out.flush();
+            return summary;
+        }
+    }
+
+    private CsvLayout layout(String header) {
+        String[] names = split(header);
+        int cellCount = engine.rows() * engine.columns();
+        int[] cells = new int[names.length];
+        int cell = 0;
+        int bet = -1;
+        int reward = -1;
+        int seed = -1;
+        for (int column = 0; column < names.length; column++) {
+            switch (names[column].trim()) {
+                case "betting_amount" -> bet = column;
+                case "reward" -> reward = column;
+                case "seed" -> seed = column;
+                default -> cells[cell++] = column;
+            }
+        }
+        if (cell != cellCount) {
+            throw new IllegalArgumentException("The CSV header has " + cell + " cell columns, a " + engine.rows()
+                    + "x" + engine.columns() + " board has " + cellCount);
+        }
+        return new CsvLayout(names.length, Arrays.copyOf(cells, cell), bet, reward, seed);
+    }
+
+    /**
+     * This method writes out a scored chunk.
+     *
+     * @return The summary with the chunk added.
+     */
+    private static Summary write(Chunk chunk, OutputStream out, PrintStream log, Summary summary) throws IOException {
+        out.write(chunk.lines());
+        long reported = summary.mismatches();
+        for (String mismatch : chunk.mismatches()) {
+            if (reported++ < MAX_REPORTED_PROBLEMS) {
+                log.println(mismatch);
+            }
+        }
+        reported = summary.rejected();
+        for (String rejection : chunk.rejections()) {
+            if (reported++ < MAX_REPORTED_PROBLEMS) {
+                log.println(rejection);
+            }
+        }
+        return new Summary(summary.boards() + chunk.boards(), summary.checked() + chunk.checked(),
+                summary.mismatches() + chunk.mismatches().size(), summary.rejected() + chunk.rejections().size());
+    }
+
+    private Chunk score(List<String> lines, long firstLine, CsvLayout layout) {
+        GameResultJsonWriter writer = writers.get();
+        writer.reset();
+        List<String> mismatches = new ArrayList<>();
+        List<String> rejections = new ArrayList<>();
+        long boards = 0;
+        long checked = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            long lineNumber = firstLine + i;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            // Step 1: Read the record and convert its matrix into a board
+            RecordedBoard record;
+            byte[] board;
+            double bet;
+            try {
+                record = layout != null ? parseCsv(line, layout) : JsonUtils.fromJson(line, RecordedBoard.class);
+                if (record.getMatrix() == null) {
+                    throw new IllegalArgumentException("no matrix");
+                }
+                board = engine.toBoard(record.getMatrix());
+                Double recordedBet = record.getBettingAmount() != null ? record.getBettingAmount() : bettingAmount;
+                if (recordedBet == null) {
+                    throw new IllegalArgumentException("no betting_amount, and no --betting-amount was given");
+                }
+                bet = recordedBet;
+            } catch (JsonProcessingException e) {
+                rejections.add("Rejected: line " + lineNumber + ": " + e.getOriginalMessage());
+                continue;
+            } catch (IOException | IllegalArgumentException e) {
+                rejections.add("Rejected: line " + lineNumber + ": " + e.getMessage());
+                continue;
+            }
+
+            // Step 2: Score the board and compare with the recorded reward
+            GameResult result = engine.score(board, bet, record.getSeed());
+            boards++;
+            if (record.getReward() != null) {
+                checked++;
+                if (Double.compare(result.getReward(), record.getReward()) != 0) {
+                    mismatches.add("Mismatch: line " + lineNumber + " has a reward of " + record.getReward()
+                            + " instead of " + result.getReward());
+                }
+            }
+
+            // Step 3: Write the board as the game would have
+            if (!writer.append(result)) {
+                try {
+                    writer.append(JsonUtils.toJsonBytes(result));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            writer.append((byte) '\n');
+        }
+        return new Chunk(writer.toByteArray(), boards, checked, mismatches, rejections);
+    }
+
+    private RecordedBoard parseCsv(String line, CsvLayout layout) {
+        String[] fields = split(line);
+        if (fields.length != layout.width()) {
+            throw new IllegalArgumentException(fields.length + " columns instead of " + layout.width());
+        }
+        String[][] matrix = new String[engine.rows()][engine.columns()];
+        for (int cell = 0; cell < layout.cells().length; cell++) {
+            matrix[cell / engine.columns()][cell % engine.columns()] = fields[layout.cells()[cell]].trim();
+        }
+        RecordedBoard record = new RecordedBoard();
+        record.setMatrix(matrix);
+        String bet = field(fields, layout.bettingAmount());
+        record.setBettingAmount(bet != null ? Double.valueOf(bet) : null);
+        String reward = field(fields, layout.reward());
+        record.setReward(reward != null ? Double.valueOf(reward) : null);
+        String seed = field(fields, layout.seed());
+        record.setSeed(seed != null ? Long.valueOf(seed) : null);
+        return record;
+    }
+
+    /**
+     * @return The trimmed field in a column, or {@code null} when the file has no such column or it is empty.
+     */
+    private static String field(String[] fields, int column) {
+        if (column < 0 || fields[column].isBlank()) {
+            return null;
+        }
+        return fields[column].trim();
+    }
+
+    /**
+     * This method splits a CSV line into its fields. A field may be quoted, with a quote inside it doubled.
+     */
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,138 @@
+package com.game.utils;
+
+import com.game.models.GameConfig;
+import com.game.services.ConfigValidator;
+import com.game.services.GameEngine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a compiled engine in step with its config file.
+ * <p>
+ * A background thread watches the file's directory. When the file changes, it loads, validates and
+ * compiles the new configuration off the play path, then publishes the new engine with a single write
+ * of an {@link AtomicReference}. Callers read the current engine once per spin or batch and keep using
+ * it, so spins in flight finish on the engine they started on and playing never takes a lock. A file
+ * that fails to load or validate is reported and the current engine stays in place.
+ */
+public class ConfigReloader implements Supplier<GameEngine>, Closeable {
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path configPath;
+    private final BiFunction<GameConfig, String, GameEngine> compiler;
+    private final Consumer<GameEngine> onReload;
+    private final AtomicReference<GameEngine> current = new AtomicReference<>();
+    private final WatchService watcher;
+    private final Thread thread;
+
+    /**
+     * This method compiles the config file once, then starts watching it.
+     *
+     * @param configPath The config file.
+     * @param compiler Compiles a validated configuration and its version into an engine.
+     * @param onReload Called with every engine published after the first one.
+     */
+    public ConfigReloader(Path configPath, BiFunction<GameConfig, String, GameEngine> compiler,
+                          Consumer<GameEngine> onReload) throws IOException {
+        this.configPath = configPath.toAbsolutePath();
+        this.compiler = compiler;
+        this.onReload = onReload;
+        current.set(compile());
+
+        this.watcher = FileSystems.getDefault().newWatchService();
+        this.configPath.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "config-reloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return The engine of the latest valid configuration.
+     */
+    @Override
+    public GameEngine get() {
+        return current.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+        thread.interrupt();
+    }
+
+    /**
+     * This method loads the config file and compiles it, unless it is the version already published.
+     *
+     * @return The compiled engine, or the current one when the file did not really change.
+     */
+    private GameEngine compile() throws IOException {
+        GameConfig config = JsonUtils.loadConfig(configPath.toString());
+        ConfigValidator.validate(config);
+        String version = JsonUtils.configVersion(config);
+        GameEngine engine = current.get();
+        if (engine != null && version.equals(engine.version())) {
+            return engine;
+        }
+        return compiler.apply(config, version);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                // Step 1: Wait for the config file to change
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= configPath.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+
+                // Step 2: Let the writer finish, dropping the events of the same save
+                Thread.sleep(SETTLE_MILLIS);
+                WatchKey more;
+                while ((more = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+
+                // Step 3: Compile in the background and publish with one swap
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void reload() {
+        GameEngine previous = current.get();
+        try {
+            GameEngine engine = compile();
+            if (engine == previous) {
+                return;
+            }
+            current.set(engine);
+            System.err.println("Reloaded " + configPath + ": version " + previous.version() + " -> " + engine.version());
+            onReload.accept(engine);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error: Cannot reload " + configPath + ", keeping version " + previous.version()
+                    + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.game.utils;
+
+import com.game.models.GameConfig;
+import com.game.models.Symbol;
+import com.game.models.WinCombination;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A validated configuration compiled into a compact binary file, with its hash, so that a game starts
+ * without parsing JSON.
+ * <p>
+ * Loading a configuration file binds it reflectively with the object mapper, and loading the mapper's own
+ * classes takes most of a cold start. A snapshot is read from a memory-mapped file field by field instead:
+ * symbols in the order their IDs are assigned, the weight table of every cell and of the bonus symbols, and
+ * the win combinations in configuration order with their areas and line families. The game compiled from
+ * it is the same as from the file, and so is its version, which is recorded rather than hashed again.
+ * <p>
+ * The file is big-endian. Strings are an int length and UTF-8 bytes; a length of -1, like a count of -1 for
+ * maps and arrays, stands for {@code null}, and nullable numbers are preceded by a presence byte.
+ *
+ * @param config The configuration, as parsed from its file.
+ * @param hash The {@linkplain JsonUtils#configHash(GameConfig) hash} of the configuration.
+ */
+public record ConfigSnapshot(GameConfig config, String hash) {
+    static final int MAGIC = 0x47534E50;  // "GSNP"
+    static final int FORMAT = 1;
+
+    /**
+     * @return The version of the configuration, the first 16 hex digits of its hash.
+     */
+    public String version() {
+        return hash.substring(0, 16);
+    }
+
+    /**
+     * This method writes the snapshot of a configuration, which the caller has validated. The file is
+     * written aside and moved into place.
+     *
+     * @param config The configuration.
+     * @param file The snapshot file to create or replace.
+     * @return The snapshot written.
+     */
+    public static ConfigSnapshot write(GameConfig config, Path file) throws IOException {
+        ConfigSnapshot snapshot = new ConfigSnapshot(config, JsonUtils.configHash(config));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        // Step 1: The header and the board
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        writeString(out, snapshot.hash());
+        out.writeInt(config.getColumns());
+        out.writeInt(config.getRows());
+
+        // Step 2: The symbols, in configuration order
+        Map<String, Symbol> symbols = config.getSymbols();
+        out.writeInt(symbols != null ? symbols.size() : -1);
+        if (symbols != null) {
+            for (Map.Entry<String, Symbol> entry : symbols.entrySet()) {
+                writeString(out, entry.getKey());
+                Symbol symbol = entry.getValue();
+                out.writeBoolean(symbol != null);
+                if (symbol != null) {
+                    writeDouble(out, symbol.getRewardMultiplier());
+                    writeString(out, symbol.getType());
+                    writeString(out, symbol.getImpact());
+                    writeDouble(out, symbol.getExtra());
+                }
+            }
+        }
+
+        // Step 3: The weight tables
+        GameConfig.Probabilities probabilities = config.getProbabilities();
+        out.writeBoolean(probabilities != null);
+        if (probabilities != null) {
+            GameConfig.StandardSymbolProbability[] cells = probabilities.getStandardSymbols();
+            out.writeInt(cells != null ? cells.length : -1);
+            if (cells != null) {
+                for (GameConfig.StandardSymbolProbability cell : cells) {
+                    out.writeBoolean(cell != null);
+                    if (cell != null) {
+                        out.writeInt(cell.getColumn());
+                        out.writeInt(cell.getRow());
+                        writeWeights(out, cell.getSymbols());
+                    }
+                }
+            }
+            GameConfig.BonusSymbolProbability bonus = probabilities.getBonusSymbols();
+            out.writeBoolean(bonus != null);
+            if (bonus != null) {
+                writeWeights(out, bonus.getSymbols());
+            }
+        }
+
+        // Step 4: The win combinations, in configuration order
+        Map<String, WinCombination> combinations = config.getWinCombinations();
+        out.writeInt(combinations != null ? combinations.size() : -1);
+        if (combinations != null) {
+            for (Map.Entry<String, WinCombination> entry : combinations.entrySet()) {
+                writeString(out, entry.getKey());
+                WinCombination combination = entry.getValue();
+                out.writeBoolean(combination != null);
+                if (combination != null) {
+                    out.writeDouble(combination.getRewardMultiplier());
+                    writeString(out, combination.getWhen());
+                    out.writeInt(combination.getCount());
+                    writeString(out, combination.getGroup());
+                    String[][] areas = combination.getCoveredAreas();
+                    out.writeInt(areas != null ? areas.length : -1);
+                    if (areas != null) {
+                        for (String[] area : areas) {
+                            writeStrings(out, area);
+                        }
+                    }
+                    writeStrings(out, combination.getGenerate());
+                }
+            }
+        }
+        out.flush();
+
+        Path target = file.toAbsolutePath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return snapshot;
+    }
+
+    /**
+     * This method loads a snapshot.
+     *
+     * @param file The snapshot file.
+     * @return The configuration and its hash.
+     * @throws IllegalArgumentException If the file is not a snapshot this version can read.
+     */
+    public static ConfigSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 8 || in.getInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a config snapshot");
+            }
+            int format = in.getInt();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException(file + " has unsupported snapshot format " + format);
+            }
+            ConfigSnapshot snapshot = new ConfigSnapshot(new GameConfig(), readString(in));
+            GameConfig config = snapshot.config();
+            config.setColumns(in.getInt());
+            config.setRows(in.getInt());
+
+            int symbolCount = in.getInt();
+            if (symbolCount >= 0) {
+                Map<String, Symbol> symbols = new LinkedHashMap<>();
+                for (int i = 0; i < symbolCount; i++) {
+                    String name = readString(in);
+                    Symbol symbol = null;
+                    if (in.get() != 0) {
+                        symbol = new Symbol();
+                        symbol.setRewardMultiplier(readDouble(in));
+                        symbol.setType(readString(in));
+                        symbol.setImpact(readString(in));
+                        symbol.setExtra(readDouble(in));
+                    }
+                    symbols.put(name, symbol);
+                }
+                config.setSymbols(symbols);
+            }
+
+            if (in.get() != 0) {
+                GameConfig.Probabilities probabilities = new GameConfig.Probabilities();
+                int cellCount = in.getInt();
+                if (cellCount >= 0) {
+                    GameConfig.StandardSymbolProbability[] cells = new GameConfig.StandardSymbolProbability[cellCount];
+                    for (int i = 0; i < cellCount; i++) {
+                        if (in.get() != 0) {
+                            cells[i] = new GameConfig.StandardSymbolProbability();
+                            cells[i].setColumn(in.getInt());
+                            cells[i].setRow(in.getInt());
+                            cells[i].setSymbols(readWeights(in));
+                        }
+                    }
+                    probabilities.setStandardSymbols(cells);
+                }
+                if (in.get() != 0) {
+                    GameConfig.BonusSymbolProbability bonus = new GameConfig.BonusSymbolProbability();
+                    bonus.setSymbols(readWeights(in));
+                    probabilities.setBonusSymbols(bonus);
+                }
+                config.setProbabilities(probabilities);
+            }
+
+            int combinationCount = in.getInt();
+            if (combinationCount >= 0) {
+                Map<String, WinCombination> combinations = new LinkedHashMap<>();
+                for (int i = 0; i < combinationCount; i++) {
+                    String name = readString(in);
+                    WinCombination combination = null;
+                    if (in.get() != 0) {
+                        combination = new WinCombination();
+                        combination.setRewardMultiplier(in.getDouble());
+                        combination.setWhen(readString(in));
+                        combination.setCount(in.getInt());
+                        combination.setGroup(readString(in));
+                        int areaCount = in.getInt();
+                        if (areaCount >= 0) {
+                            String[][] areas = new String[areaCount][];
+                            for (int area = 0; area < areaCount; area++) {
+                                areas[area] = readStrings(in);
+                            }
+                            combination.setCoveredAreas(areas);
+                        }
+                        combination.setGenerate(readStrings(in));
+                    }
+                    combinations.put(name, combination);
+                }
+                config.setWinCombinations(combinations);
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException(file + " has " + in.remaining() + " bytes past the snapshot");
+            }
+            return snapshot;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException(file + " is a truncated config snapshot");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values != null ? values.length : -1);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static String[] readStrings(MappedByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(MappedByteBuffer in) {
+        return in.get() != 0 ? in.getDouble() : null;
+    }
+
+    private static void writeWeights(DataOutputStream out, Map<String, Integer> weights) throws IOException {
+        out.writeInt(weights != null ? weights.size() : -1);
+        if (weights != null) {
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeBoolean(entry.getValue() != null);
+                if (entry.getValue() != null) {
+                    out.writeInt(entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static Map<String, Integer> readWeights(MappedByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            weights.put(name, in.get() != 0 ? in.getInt() : null);
+        }
+        return weights;
+    }
+}
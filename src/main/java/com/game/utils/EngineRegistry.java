@@ -0,0 +1,182 @@
+package com.game.utils;
+
+import com.game.models.GameConfig;
+import com.game.services.ConfigValidator;
+import com.game.services.GameEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled engines for many game variants, one config file per variant, within a memory budget.
+ * <p>
+ * The variant {@code id} is read from {@code <directory>/<id>.json} and compiled the first time it is
+ * asked for. Concurrent first requests for the same variant wait for a single compile. Compiled engines
+ * are kept until their {@linkplain GameEngine#estimatedBytes() estimated size} no longer fits the
+ * budget, then the least recently used ones are dropped; spins already playing on a dropped engine
+ * finish on it. Looking up a compiled engine is one concurrent map read and takes no lock.
+ */
+public class EngineRegistry {
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]*");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final BiFunction<GameConfig, String, GameEngine> compiler;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private long totalBytes;  // Guarded by evictionLock
+
+    private static final class Entry {
+        final CompletableFuture<GameEngine> engine = new CompletableFuture<>();
+        volatile long lastUsed;
+        long bytes;  // Guarded by evictionLock
+        boolean admitted;  // Guarded by evictionLock
+    }
+
+    /**
+     * @param directory The directory holding one {@code <id>.json} config file per variant.
+     * @param maxBytes The total estimated size of the engines kept compiled.
+     * @param compiler Compiles a validated configuration and its version into an engine.
+     */
+    public EngineRegistry(Path directory, long maxBytes, BiFunction<GameConfig, String, GameEngine> compiler) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The engine cache budget must be positive");
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.compiler = compiler;
+    }
+
+    /**
+     * This method returns the engine of a variant, compiling it on first use.
+     *
+     * @param id The variant, the name of its config file without {@code .json}.
+     * @return The engine, or {@code null} when there is no such variant.
+     * @throws IOException When the config file cannot be read.
+     * @throws IllegalArgumentException When the config file is not a valid configuration.
+     */
+    public GameEngine get(String id) throws IOException {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            // Step 1: Only ask the file system about well-formed IDs, so an ID can never leave the directory
+            Path file = ID.matcher(id).matches() ? directory.resolve(id + ".json") : null;
+            if (file == null || !Files.isRegularFile(file)) {
+                return null;
+            }
+
+            // Step 2: The first caller compiles, the others wait for its result
+            Entry created = new Entry();
+            entry = entries.putIfAbsent(id, created);
+            if (entry == null) {
+                entry = created;
+                load(id, file, created);
+            }
+        }
+        entry.lastUsed = System.nanoTime();
+        try {
+            return entry.engine.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    /**
+     * This method drops the compiled engine of a variant, so that the next request reads its file again.
+     *
+     * @param id The variant.
+     */
+    public void invalidate(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            synchronized (evictionLock) {
+                release(entry);
+            }
+        }
+    }
+
+    /**
+     * @return The number of variants compiled or being compiled.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The total estimated size of the compiled engines.
+     */
+    public long estimatedBytes() {
+        synchronized (evictionLock) {
+            return totalBytes;
+        }
+    }
+
+    private void load(String id, Path file, Entry entry) {
+        try {
+            GameConfig config = JsonUtils.loadConfig(file.toString());
+            ConfigValidator.validate(config);
+            GameEngine engine = compiler.apply(config, JsonUtils.configVersion(config));
+            entry.lastUsed = System.nanoTime();
+            admit(id, entry, engine.estimatedBytes());
+            entry.engine.complete(engine);
+        } catch (IOException e) {
+            entries.remove(id, entry);  // Let a later request try again
+            entry.engine.completeExceptionally(new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            entries.remove(id, entry);
+            entry.engine.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * This method counts a newly compiled engine against the budget, then drops the least recently used
+     * other engines until the total fits again. An engine larger than the whole budget is still kept.
+     */
+    private void admit(String id, Entry entry, long bytes) {
+        synchronized (evictionLock) {
+            if (entries.get(id) != entry) {
+                return;  // Invalidated while compiling
+            }
+            entry.bytes = bytes;
+            entry.admitted = true;
+            totalBytes += bytes;
+
+            while (totalBytes > maxBytes) {
+                String victimId = null;
+                Entry victim = null;
+                for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                    Entry other = candidate.getValue();
+                    if (other != entry && other.admitted && (victim == null || other.lastUsed < victim.lastUsed)) {
+                        victimId = candidate.getKey();
+                        victim = other;
+                    }
+                }
+                if (victim == null) {
+                    break;
+                }
+                entries.remove(victimId, victim);
+                release(victim);
+            }
+        }
+    }
+
+    private void release(Entry entry) {
+        if (entry.admitted) {
+            entry.admitted = false;
+            totalBytes -= entry.bytes;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.game.utils;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.game.models.GameResult;
+import com.game.services.SpinEvaluation;
+import com.game.services.SymbolTable;
+import com.game.services.WinCombinationPlan;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes game results as JSON straight from their compact form, into a growable byte buffer that is reused
+ * from one result to the next.
+ * <p>
+ * The output is byte for byte what the {@link JsonUtils} object mapper writes for the same result, but no
+ * {@code String[][]} matrix or intermediate string is built: symbol and combination names are copied from
+ * the JSON strings their tables precompute. The winning combinations are written from the hit counts of
+ * the evaluation, in the key order of the map the object mapper would serialize, which
+ * {@link WinCombinationPlan#keyOrder} knows without building the map for most configurations. Results this
+ * writer cannot reproduce exactly, those not played by a {@link com.game.services.GameEngine} or with a
+ * reward that is not a finite number, are refused, and the caller writes them with the object mapper
+ * instead.
+ * <p>
+ * A writer is not thread-safe; {@link JsonUtils} keeps one per thread.
+ */
+public final class GameResultJsonWriter {
+    private static final byte[] MATRIX = ascii("{\"matrix\":[");
+    private static final byte[] REWARD = ascii("],\"reward\":");
+    private static final byte[] COMBINATIONS = ascii(",\"applied_winning_combinations\":{");
+    private static final byte[] BONUS_SYMBOL = ascii("},\"applied_bonus_symbol\":");
+    private static final byte[] SEED = ascii(",\"seed\":");
+    private static final byte[] CONFIG_VERSION = ascii(",\"config_version\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] LONG_MIN = ascii(Long.toString(Long.MIN_VALUE));
+
+    /** Integral doubles below this print as plain digits and ".0"; larger ones switch to exponent notation. */
+    private static final double PLAIN_DOUBLE_LIMIT = 1e7;
+
+    private byte[] buffer;
+    private int length;
+
+    public GameResultJsonWriter() {
+        this(1 << 12);
+    }
+
+    /**
+     * @param initialCapacity The initial size of the buffer, in bytes; it grows as needed.
+     */
+    public GameResultJsonWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 64)];
+    }
+
+    /**
+     * This method appends the JSON form of a result to the buffer.
+     *
+     * @param result The result to write.
+     * @return {@code true} if the result was written, {@code false} if this writer cannot reproduce it, in
+     *         which case the buffer is left unchanged.
+     */
+    public boolean append(GameResult result) {
+        byte[] board = result.board();
+        if (board == null || !(result.combinationsSource() instanceof SpinEvaluation evaluation)
+                || !Double.isFinite(result.getReward())) {
+            return false;
+        }
+        WinCombinationPlan plan = evaluation.plan();
+        SymbolTable symbols = plan.symbols();
+
+        // Step 1: The matrix, row by row
+        write(MATRIX);
+        int columns = result.columns();
+        int rows = columns == 0 ? 0 : board.length / columns;
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                write((byte) ',');
+            }
+            write((byte) '[');
+            for (int col = 0; col < columns; col++) {
+                if (col > 0) {
+                    write((byte) ',');
+                }
+                byte[] name = symbols.quotedName(board[row * columns + col]);
+                write(name != null ? name : NULL);
+            }
+            write((byte) ']');
+        }
+
+        // Step 2: The reward
+        write(REWARD);
+        writeDouble(result.getReward());
+
+        // Step 3: The winning combinations, symbols in the order of the map's keys, each combination
+        // repeated once per hit in configuration order, as the map lists them
+        write(COMBINATIONS);
+        if (evaluation.isWinning()) {
+            boolean first = true;
+            for (int symbol : plan.keyOrder(evaluation)) {
+                if (!evaluation.isWinning(symbol)) {
+                    continue;
+                }
+                if (!first) {
+                    write((byte) ',');
+                }
+                first = false;
+                write(symbols.quotedName(symbol));
+                write((byte) ':');
+                write((byte) '[');
+                boolean firstName = true;
+                for (int combination = 0; combination < plan.combinationCount(); combination++) {
+                    for (int k = evaluation.hits(symbol, combination); k > 0; k--) {
+                        if (!firstName) {
+                            write((byte) ',');
+                        }
+                        firstName = false;
+                        write(plan.quotedCombinationName(combination));
+                    }
+                }
+                write((byte) ']');
+            }
+        }
+
+        // Step 4: The bonus symbols, then the optional seed and configuration version
+        write(BONUS_SYMBOL);
+        writeString(result.getAppliedBonusSymbol());
+        if (result.getSeed() != null) {
+            write(SEED);
+            writeLong(result.getSeed());
+        }
+        if (result.getConfigVersion() != null) {
+            write(CONFIG_VERSION);
+            writeString(result.getConfigVersion());
+        }
+        write((byte) '}');
+        return true;
+    }
+
+    /**
+     * This method appends raw bytes, such as a line separator, to the buffer.
+     */
+    public void append(byte value) {
+        write(value);
+    }
+
+    /**
+     * This method appends bytes produced elsewhere, such as a result written by the object mapper.
+     */
+    public void append(byte[] bytes) {
+        write(bytes);
+    }
+
+    /**
+     * This method copies the buffered bytes to a stream, leaving the buffer as it is.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    /**
+     * @return A copy of the buffered bytes.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * @return The buffered bytes decoded as UTF-8.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method empties the buffer, keeping its capacity.
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    public int length() { return length; }
+
+    private void writeString(String value) {
+        if (value == null) {
+            write(NULL);
+            return;
+        }
+        ensureCapacity(value.length() + 2);
+        int start = length;
+        buffer[length++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x7f || c == '"' || c == '\\') {
+                // Escaping or multi-byte characters: leave it to the encoder Jackson itself uses
+                length = start;
+                write((byte) '"');
+                write(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+                write((byte) '"');
+                return;
+            }
+            buffer[length++] = (byte) c;
+        }
+        buffer[length++] = '"';
+    }
+
+    /**
+     * This method writes a double as {@link Double#toString(double)} does, which is what Jackson writes.
+     * Integral amounts, the usual rewards, are written without going through a string.
+     */
+    private void writeDouble(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < PLAIN_DOUBLE_LIMIT
+                && (value != 0.0 || Double.doubleToRawLongBits(value) == 0L)) {
+            writeLong((long) value);
+            write((byte) '.');
+            write((byte) '0');
+        } else {
+            String text = Double.toString(value);
+            ensureCapacity(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer[length++] = (byte) text.charAt(i);
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(LONG_MIN);
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+    }
+
+    private void write(byte value) {
+        ensureCapacity(1);
+        buffer[length++] = value;
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
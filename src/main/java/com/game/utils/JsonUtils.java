@@ -1,24 +1,155 @@
 package com.game.utils;
 
 
+import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.game.models.AnalysisResult;
 import com.game.models.GameConfig;
 import com.game.models.GameResult;
+import com.game.models.SimulationResult;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
 
 public class JsonUtils {
-    private static final ObjectMapper objectMapper = new ObjectMapper()
-            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    private static final ThreadLocal<GameResultJsonWriter> resultWriters =
+            ThreadLocal.withInitial(GameResultJsonWriter::new);
 
     public static GameConfig loadConfig(String filePath) throws IOException {
-        return objectMapper.readValue(new File(filePath), GameConfig.class);
+        return mapper().readValue(new File(filePath), GameConfig.class);
     }
 
 
+    /**
+     * This method fingerprints a configuration, so that a seeded spin can be matched with the configuration
+     * it was played on. The hash covers the configuration as parsed, with the properties of every object in
+     * alphabetical order and the entries of every map in their original order, so formatting does not
+     * change it but anything that can change a spin does. Its own mapper sorts the properties, since the
+     * order the shared mapper finds them in by reflection is not specified.
+     *
+     * @param config The game configuration.
+     * @return The SHA-256 hash of the configuration, in lowercase hex.
+     */
+    public static String configHash(GameConfig config) throws IOException {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(HashMapper.INSTANCE.writeValueAsBytes(config));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * This method names the version of a configuration: the first 16 hex digits of its
+     * {@linkplain #configHash(GameConfig) hash}, short enough to record in every result.
+     *
+     * @param config The game configuration.
+     * @return The version of the configuration.
+     */
+    public static String configVersion(GameConfig config) throws IOException {
+        return configHash(config).substring(0, 16);
+    }
+
+    public static <T> T fromJson(InputStream in, Class<T> type) throws IOException {
+        return mapper().readValue(in, type);
+    }
+
+    public static <T> T fromJson(String json, Class<T> type) throws IOException {
+        return mapper().readValue(json, type);
+    }
+
     public static String toJson(GameResult result) throws IOException {
-        return objectMapper.writeValueAsString(result);
+        GameResultJsonWriter writer = resultWriter();
+        if (writer.append(result)) {
+            return writer.toString();
+        }
+        return mapper().writeValueAsString(result);
+    }
+
+    /**
+     * This method serializes a game result to UTF-8 JSON, the same bytes as {@link #toJson(GameResult)}
+     * encodes to, without building the intermediate string.
+     *
+     * @param result The game result.
+     * @return The JSON form of the result.
+     */
+    public static byte[] toJsonBytes(GameResult result) throws IOException {
+        GameResultJsonWriter writer = resultWriter();
+        if (writer.append(result)) {
+            return writer.toByteArray();
+        }
+        return mapper().writeValueAsBytes(result);
+    }
+
+    /**
+     * @return An empty writer: the calling thread's own, or a small new one on a virtual thread, which
+     *         serves a single request and would not reuse it.
+     */
+    private static GameResultJsonWriter resultWriter() {
+        if (Thread.currentThread().isVirtual()) {
+            return new GameResultJsonWriter(512);
+        }
+        GameResultJsonWriter writer = resultWriters.get();
+        writer.reset();
+        return writer;
+    }
+
+    /**
+     * This method serializes a game result with the object mapper, for results a
+     * {@link GameResultJsonWriter} refuses.
+     */
+    static byte[] toJsonBytesWithMapper(GameResult result) throws IOException {
+        return mapper().writeValueAsBytes(result);
+    }
+
+    public static String toJson(Map<String, ?> values) throws IOException {
+        return mapper().writeValueAsString(values);
+    }
+
+    public static String toJson(SimulationResult result) throws IOException {
+        return mapper().writerWithDefaultPrettyPrinter().writeValueAsString(result);
+    }
+
+    public static String toJson(AnalysisResult result) throws IOException {
+        return mapper().writerWithDefaultPrettyPrinter().writeValueAsString(result);
+    }
+
+    /**
+     * This method opens a newline-delimited JSON writer for game results.
+     *
+     * @param out The stream to write to.
+     * @param closeTarget Whether closing the writer also closes {@code out}; {@code false} for standard output.
+     * @return A writer that buffers its output and only flushes when full or closed.
+     */
+    public static NdjsonWriter ndjsonWriter(OutputStream out, boolean closeTarget) {
+        return new NdjsonWriter(out, closeTarget);
+    }
+
+    /**
+     * @return The object mapper, created on first use: results written by a {@link GameResultJsonWriter} of
+     *         a game loaded from a {@link ConfigSnapshot} never need it, nor the start-up time it costs.
+     */
+    private static ObjectMapper mapper() {
+        return Mapper.INSTANCE;
+    }
+
+    private static final class Mapper {
+        static final ObjectMapper INSTANCE = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    }
+
+    private static final class HashMapper {
+        static final ObjectMapper INSTANCE = JsonMapper.builder()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .build();
     }
-}
\ No newline at end of file
+}
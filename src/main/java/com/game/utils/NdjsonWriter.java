@@ -0,0 +1,55 @@
+package com.game.utils;
+
+import com.game.models.GameResult;
+import com.game.services.GameResultSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams game results as newline-delimited JSON, one result per line, through a single reusable buffer.
+ * Each line is exactly what {@link JsonUtils#toJson(GameResult)} returns for the same result, but nothing is
+ * kept once it is written, so memory stays flat however many results go through.
+ */
+public class NdjsonWriter implements GameResultSink, Closeable {
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+
+    private final OutputStream out;
+    private final boolean closeTarget;
+    private final GameResultJsonWriter writer = new GameResultJsonWriter(FLUSH_THRESHOLD + (1 << 12));
+
+    NdjsonWriter(OutputStream out, boolean closeTarget) {
+        this.out = out;
+        this.closeTarget = closeTarget;
+    }
+
+    @Override
+    public void accept(GameResult result) throws IOException {
+        if (!writer.append(result)) {
+            writer.append(JsonUtils.toJsonBytesWithMapper(result));
+        }
+        writer.append((byte) '\n');
+        if (writer.length() >= FLUSH_THRESHOLD) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        writer.writeTo(out);
+        writer.reset();
+    }
+
+    /**
+     * This method flushes the buffered lines, and closes the target stream if the writer owns it.
+     */
+    @Override
+    public void close() throws IOException {
+        drain();
+        if (closeTarget) {
+            out.close();
+        } else {
+            out.flush();
+        }
+    }
+}
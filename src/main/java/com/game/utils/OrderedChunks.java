@@ -0,0 +1,98 @@
+package com.game.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the chunks of a long input in parallel and hands their results back in submission order, folding
+ * them into a summary.
+ * <p>
+ * Only a few chunks per thread are in flight at a time: submitting one more first waits for the oldest and
+ * writes it out, so memory stays flat however long the input is. A chunk that throws an
+ * {@link UncheckedIOException} fails the run with its {@link IOException}.
+ *
+ * @param <C> The type of the result of a chunk.
+ * @param <S> The type of the summary.
+ */
+public final class OrderedChunks<C, S> implements AutoCloseable {
+    /**
+     * Writes out the result of a chunk.
+     */
+    public interface Writer<C, S> {
+        /**
+         * @return The summary with the chunk added.
+         */
+        S write(C chunk, S summary) throws IOException;
+    }
+
+    private final ExecutorService pool;
+    private final int maxInFlight;
+    private final Writer<C, S> writer;
+    private final ArrayDeque<Future<C>> inFlight = new ArrayDeque<>();
+    private S summary;
+
+    /**
+     * @param pool The threads to run the chunks on, shut down when this is closed.
+     * @param threads The number of threads of the pool.
+     * @param summary The summary before any chunk.
+     * @param writer Receives the results in submission order, on the submitting thread.
+     */
+    public OrderedChunks(ExecutorService pool, int threads, S summary, Writer<C, S> writer) {
+        this.pool = pool;
+        this.maxInFlight = 2 * Math.max(1, threads);
+        this.summary = summary;
+        this.writer = writer;
+    }
+
+    /**
+     * This method queues a chunk.
+     *
+     * @param chunk The work of the chunk.
+     */
+    public void submit(Callable<C> chunk) throws IOException, InterruptedException {
+        // Step 1: Wait for the oldest chunk before queueing more than a few per thread
+        if (inFlight.size() >= maxInFlight) {
+            summary = writer.write(take(inFlight.poll()), summary);
+        }
+        inFlight.add(pool.submit(chunk));
+    }
+
+    /**
+     * This method waits for the chunks still in flight and writes them out, in order.
+     *
+     * @return The summary of every chunk submitted.
+     */
+    public S finish() throws IOException, InterruptedException {
+        while (!inFlight.isEmpty()) {
+            summary = writer.write(take(inFlight.poll()), summary);
+        }
+        return summary;
+    }
+
+    private static <C> C take(Future<C> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * This method stops the pool, abandoning the chunks still in flight.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,138 @@
+package com.game;
+
+import com.game.models.GameConfig;
+import com.game.models.Symbol;
+import com.game.models.WinCombination;
+import com.game.utils.JsonUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Configurations shared by the tests.
+ */
+public final class TestConfigs {
+    private TestConfigs() { }
+
+    /**
+     * @return The configuration shipped with the game.
+     */
+    public static GameConfig shipped() throws IOException {
+        return JsonUtils.loadConfig("config.json");
+    }
+
+    /**
+     * This method builds a 5x5 configuration whose 16 standard symbols all share one {@code hashCode}, so that
+     * every map keyed by symbol name puts them in a single bucket, with a same_symbols rule that any symbol on
+     * the board wins.
+     *
+     * @return The configuration.
+     */
+    public static GameConfig collidingNames() {
+        GameConfig config = new GameConfig();
+        config.setColumns(5);
+        config.setRows(5);
+
+        // "Aa" and "BB" have the same hash code, and so does every string made of them
+        Map<String, Symbol> symbols = new LinkedHashMap<>();
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (int i = 0; i < 16; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int bit = 3; bit >= 0; bit--) {
+                name.append((i >> bit & 1) == 0 ? "Aa" : "BB");
+            }
+            symbols.put(name.toString(), symbol(1 + i * 0.25, "standard", null, null));
+            weights.put(name.toString(), 1);
+        }
+        symbols.put("10x", symbol(10.0, "bonus", "multiply_reward", null));
+        symbols.put("+500", symbol(null, "bonus", "extra_bonus", 500.0));
+        symbols.put("MISS", symbol(null, "bonus", "miss", null));
+        config.setSymbols(symbols);
+
+        GameConfig.StandardSymbolProbability[] cells = new GameConfig.StandardSymbolProbability[25];
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = new GameConfig.StandardSymbolProbability();
+            cells[cell].setRow(cell / 5);
+            cells[cell].setColumn(cell % 5);
+            cells[cell].setSymbols(weights);
+        }
+        GameConfig.BonusSymbolProbability bonus = new GameConfig.BonusSymbolProbability();
+        bonus.setSymbols(new LinkedHashMap<>(Map.of("10x", 1, "+500", 1, "MISS", 2)));
+        GameConfig.Probabilities probabilities = new GameConfig.Probabilities();
+        probabilities.setStandardSymbols(cells);
+        probabilities.setBonusSymbols(bonus);
+        config.setProbabilities(probabilities);
+
+        Map<String, WinCombination> combinations = new LinkedHashMap<>();
+        combinations.put("same_symbol_1_times", sameSymbols(1, 1.0));
+        combinations.put("same_symbol_3_times", sameSymbols(3, 2.0));
+        String[][] rows = new String[5][5];
+        String[][] diagonals = new String[2][5];
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                rows[row][col] = row + ":" + col;
+            }
+            diagonals[0][row] = row + ":" + row;
+            diagonals[1][row] = row + ":" + (4 - row);
+        }
+        combinations.put("same_symbols_horizontally", linearSymbols(rows, 2.0));
+        combinations.put("same_symbols_diagonally", linearSymbols(diagonals, 5.0));
+        config.setWinCombinations(combinations);
+        return config;
+    }
+
+    /**
+     * This method fills boards with random symbol IDs, bonus symbols included, weighted towards a few
+     * symbols so that lines win now and then.
+     *
+     * @param cells The number of cells of a board.
+     * @param symbolCount The number of known symbols.
+     * @param count The number of boards.
+     * @param seed The seed of the boards.
+     * @return The boards.
+     */
+    public static List<byte[]> randomBoards(int cells, int symbolCount, int count, long seed) {
+        Random random = new Random(seed);
+        List<byte[]> boards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] board = new byte[cells];
+            int favourites = 1 + random.nextInt(3);
+            for (int cell = 0; cell < cells; cell++) {
+                board[cell] = (byte) (random.nextInt(4) != 0 ? random.nextInt(favourites) : random.nextInt(symbolCount));
+            }
+            boards.add(board);
+        }
+        return boards;
+    }
+
+    private static Symbol symbol(Double multiplier, String type, String impact, Double extra) {
+        Symbol symbol = new Symbol();
+        symbol.setRewardMultiplier(multiplier);
+        symbol.setType(type);
+        symbol.setImpact(impact);
+        symbol.setExtra(extra);
+        return symbol;
+    }
+
+    private static WinCombination sameSymbols(int count, double multiplier) {
+        WinCombination combination = new WinCombination();
+        combination.setWhen("same_symbols");
+        combination.setGroup("same_symbols");
+        combination.setCount(count);
+        combination.setRewardMultiplier(multiplier);
+        return combination;
+    }
+
+    private static WinCombination linearSymbols(String[][] areas, double multiplier) {
+        WinCombination combination = new WinCombination();
+        combination.setWhen("linear_symbols");
+        combination.setGroup("linear");
+        combination.setCoveredAreas(areas);
+        combination.setRewardMultiplier(multiplier);
+        return combination;
+    }
+}
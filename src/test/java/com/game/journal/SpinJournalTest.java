@@ -0,0 +1,214 @@
+package com.game.journal;
+
+import com.game.TestConfigs;
+import com.game.models.GameConfig;
+import com.game.models.GameResult;
+import com.game.services.GameEngine;
+import com.game.services.RandomSource;
+import com.game.services.SymbolTable;
+import com.game.utils.JsonUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpinJournalTest {
+    private static final int RECORDS_PER_SEGMENT = 10;
+    private static final double BET = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readerRoundTripsEverySpinAcrossSegments() throws IOException {
+        GameConfig config = TestConfigs.shipped();
+        String version = JsonUtils.configVersion(config);
+        SymbolTable symbols = SymbolTable.compile(config);
+        List<GameResult> results = play(config, version, directory, 25, 1000);
+
+        JournalReader reader = JournalReader.open(directory);
+        assertEquals(3, reader.segments().size());
+        assertEquals(List.of(10, 10, 5), reader.segments().stream().map(JournalReader.Segment::records).toList());
+        List<JournalRecord> records = read(reader);
+        for (int i = 0; i < results.size(); i++) {
+            assertMatches(results.get(i), records.get(i), version, symbols);
+        }
+
+        // Opening the journal again starts a new segment after the existing ones
+        play(config, version, directory, 3, 2000);
+        reader = JournalReader.open(directory);
+        assertEquals(4, reader.segments().size());
+        assertEquals("segment-00000003.journal", reader.segments().get(3).file().getFileName().toString());
+        assertEquals(3, reader.segments().get(3).records());
+    }
+
+    @Test
+    void readerSkipsUnfinishedAndCutOffRecords() throws IOException {
+        GameConfig config = TestConfigs.shipped();
+        String version = JsonUtils.configVersion(config);
+        SymbolTable symbols = SymbolTable.compile(config);
+        List<GameResult> results = play(config, version, directory, 15, 3000);
+        JournalLayout layout = JournalLayout.forConfig(config);
+        Path first = directory.resolve(SpinJournal.segmentName(0));
+        Path second = directory.resolve(SpinJournal.segmentName(1));
+
+        // A spin that crashed before its timestamp was written, and a segment cut off in the middle of a record
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, 0L),
+                    JournalLayout.HEADER_BYTES + 3L * layout.recordSize() + JournalLayout.TIMESTAMP_OFFSET);
+        }
+        try (FileChannel channel = FileChannel.open(second, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - layout.recordSize() / 2);
+        }
+
+        JournalReader reader = JournalReader.open(directory);
+        assertEquals(10, reader.segments().get(0).records());
+        assertEquals(4, reader.segments().get(1).records());
+        JournalRecord record = new JournalRecord();
+        assertFalse(reader.segments().get(0).read(3, record));
+        List<JournalRecord> records = read(reader);
+        assertEquals(13, records.size());
+        for (JournalRecord read : records) {
+            int spin = indexOf(results, read);
+            assertTrue(spin != 3 && spin != 14, "Spin " + spin + " was not finished");
+            assertMatches(results.get(spin), read, version, symbols);
+        }
+    }
+
+    @Test
+    void everyConfigVersionGetsAJournalSizedForItsBoards() throws IOException {
+        GameConfig small = TestConfigs.shipped();
+        GameConfig large = TestConfigs.shipped();
+        large.setRows(12);
+        large.setColumns(12);
+        String smallVersion = JsonUtils.configVersion(small);
+        String largeVersion = JsonUtils.configVersion(large);
+        SymbolTable symbols = SymbolTable.compile(small);
+
+        // A 144-cell board does not fit the records of the shipped 3x3 game
+        try (SpinJournal journal = SpinJournal.open(directory.resolve("shared"), JournalLayout.forConfig(small), 1 << 16)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new GameEngine(large, largeVersion, RandomSource.seeded(), false, journal));
+        }
+
+        List<GameResult> smallResults = new ArrayList<>();
+        List<GameResult> largeResults = new ArrayList<>();
+        try (SpinJournals journals = new SpinJournals(directory, 1 << 16)) {
+            GameEngine smallEngine = new GameEngine(small, smallVersion, RandomSource.seeded(), false,
+                    journals.forConfig(small, smallVersion));
+            GameEngine largeEngine = new GameEngine(large, largeVersion, RandomSource.seeded(), false,
+                    journals.forConfig(large, largeVersion));
+            for (long seed = 0; seed < 20; seed++) {
+                smallResults.add(smallEngine.play(BET, seed));
+                largeResults.add(largeEngine.play(BET, seed));
+            }
+        }
+
+        JournalReader smallReader = JournalReader.open(SpinJournals.directoryOf(directory, smallVersion));
+        JournalReader largeReader = JournalReader.open(SpinJournals.directoryOf(directory, largeVersion));
+        assertEquals(9, smallReader.segments().get(0).layout().cells());
+        assertEquals(144, largeReader.segments().get(0).layout().cells());
+        List<JournalRecord> smallRecords = read(smallReader);
+        List<JournalRecord> largeRecords = read(largeReader);
+        for (int i = 0; i < 20; i++) {
+            assertMatches(smallResults.get(i), smallRecords.get(i), smallVersion, symbols);
+            assertMatches(largeResults.get(i), largeRecords.get(i), largeVersion, symbols);
+        }
+    }
+
+    /**
+     * This method plays seeded spins into a journal of {@link #RECORDS_PER_SEGMENT} records per segment.
+     */
+    private static List<GameResult> play(GameConfig config, String version, Path directory, int spins, long firstSeed)
+            throws IOException {
+        JournalLayout layout = JournalLayout.forConfig(config);
+        List<GameResult> results = new ArrayList<>();
+        try (SpinJournal journal = SpinJournal.open(directory, layout,
+                JournalLayout.HEADER_BYTES + RECORDS_PER_SEGMENT * layout.recordSize())) {
+            GameEngine engine = new GameEngine(config, version, RandomSource.seeded(), false, journal);
+            for (int i = 0; i < spins; i++) {
+                results.add(engine.play(BET, firstSeed + i));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return Copies of every finished record, in the order they were written.
+     */
+    private static List<JournalRecord> read(JournalReader reader) {
+        List<JournalRecord> records = new ArrayList<>();
+        for (JournalReader.Segment segment : reader.segments()) {
+            for (int i = 0; i < segment.records(); i++) {
+                JournalRecord record = new JournalRecord();
+                if (segment.read(i, record)) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    private static int indexOf(List<GameResult> results, JournalRecord record) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).getSeed().equals(record.seed())) {
+                return i;
+            }
+        }
+        throw new AssertionError("No spin was played with seed " + record.seed());
+    }
+
+    private static void assertMatches(GameResult result, JournalRecord record, String version, SymbolTable symbols) {
+        assertTrue(record.timestamp() > 0);
+        assertEquals(version, record.version());
+        assertEquals(result.getSeed(), record.seed());
+        assertEquals(BET, record.bettingAmount());
+        assertEquals(result.getReward(), record.reward());
+        assertEquals(result.board().length / result.columns(), record.rows());
+        assertEquals(result.columns(), record.columns());
+        assertArrayEquals(result.board(), record.board());
+
+        Set<String> combinations = new HashSet<>();
+        if (result.getAppliedWinningCombinations() != null) {
+            result.getAppliedWinningCombinations().values().forEach(combinations::addAll);
+        }
+        assertEquals(combinations.size(), bitCount(record.combinationMask()));
+
+        // Every bonus symbol on a winning board but MISS
+        Set<Integer> bonusSymbols = new HashSet<>();
+        if (!combinations.isEmpty()) {
+            for (byte cell : result.board()) {
+                if (symbols.isReportedBonus(cell)) {
+                    bonusSymbols.add((int) cell);
+                }
+            }
+        }
+        assertEquals(bonusSymbols.size(), bitCount(record.bonusMask()));
+        for (int symbol : bonusSymbols) {
+            assertTrue((record.bonusMask()[symbol >>> 6] & 1L << symbol) != 0, "Bonus symbol " + symbol);
+        }
+    }
+
+    private static int bitCount(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,79 @@
+package com.game.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutcomeRingTest {
+    private static final int OUTCOMES = 200_000;
+    private static final int CONSUMERS = 4;
+
+    @Test
+    void everyOutcomeIsClaimedExactlyOnceByManyConsumers() {
+        for (int capacity : new int[] {1, 4, 64}) {
+            assertTimeoutPreemptively(Duration.ofSeconds(60), () -> claimAll(new OutcomeRing<>(capacity)));
+        }
+    }
+
+    @Test
+    void offerFailsWhenFullAndPollWhenEmpty() {
+        OutcomeRing<Integer> ring = new OutcomeRing<>(3);
+        assertEquals(4, ring.capacity());
+        assertNull(ring.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+        assertEquals(0, ring.size());
+    }
+
+    private static void claimAll(OutcomeRing<Integer> ring) throws InterruptedException {
+        AtomicIntegerArray claims = new AtomicIntegerArray(OUTCOMES);
+        AtomicLong claimed = new AtomicLong();
+        List<Thread> consumers = new ArrayList<>();
+        for (int i = 0; i < CONSUMERS; i++) {
+            Thread consumer = new Thread(() -> {
+                while (claimed.get() < OUTCOMES) {
+                    Integer outcome = ring.poll();
+                    if (outcome != null) {
+                        claims.incrementAndGet(outcome);
+                        claimed.incrementAndGet();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            });
+            consumer.start();
+            consumers.add(consumer);
+        }
+        for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+            while (!ring.offer(outcome)) {
+                Thread.yield();
+            }
+        }
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+
+        assertEquals(OUTCOMES, claimed.get());
+        for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+            assertEquals(1, claims.get(outcome), "Claims of outcome " + outcome);
+        }
+        assertNull(ring.poll());
+    }
+}
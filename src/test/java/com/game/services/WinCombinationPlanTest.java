@@ -0,0 +1,164 @@
+package com.game.services;
+
+import com.game.TestConfigs;
+import com.game.models.GameConfig;
+import com.game.models.Symbol;
+import com.game.models.WinCombination;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WinCombinationPlanTest {
+    private static final int BOARDS = 20_000;
+
+    private record SymbolCombination(String symbol, String combinationName) { }
+
+    @Test
+    void mapMatchesGroupingByOnTheShippedConfig() throws IOException {
+        assertMapsMatch(TestConfigs.shipped(), 1L);
+    }
+
+    @Test
+    void mapMatchesGroupingByWhenSymbolNamesCollide() {
+        assertMapsMatch(TestConfigs.collidingNames(), 2L);
+    }
+
+    @Test
+    void baseRewardMatchesTheStreamOverTheMapBitForBit() throws IOException {
+        // The shipped config iterates winning symbols in a fixed order; colliding names need each map built
+        assertRewardsMatch(TestConfigs.shipped(), 4L);
+        assertRewardsMatch(TestConfigs.collidingNames(), 5L);
+    }
+
+    private static void assertRewardsMatch(GameConfig config, long seed) {
+        SymbolTable symbols = SymbolTable.compile(config);
+        WinCombinationPlan plan = new WinCombinationPlan(config, symbols);
+        int columns = config.getColumns();
+        int plainSumDiffers = 0;
+        for (byte[] board : TestConfigs.randomBoards(config.getRows() * columns, symbols.size() - 1, BOARDS, seed)) {
+            String[][] matrix = new String[config.getRows()][columns];
+            for (int cell = 0; cell < board.length; cell++) {
+                matrix[cell / columns][cell % columns] = symbols.name(board[cell]);
+            }
+            Map<String, List<String>> combinations = checkWinningCombinations(config, matrix);
+            SpinEvaluation evaluation = plan.evaluate(board);
+            for (double bet : new double[] {1.37, 0.3, 100}) {
+                double expected = baseReward(config, combinations, bet);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(plan.baseReward(evaluation, bet)),
+                        "Reward at bet " + bet + " of " + combinations);
+
+                // A plain sum in symbol ID order is not good enough, or this test would not tell
+                double plain = 0.0;
+                for (int symbol = 0; symbol < symbols.size(); symbol++) {
+                    List<String> names = combinations.get(symbols.name(symbol));
+                    if (names != null) {
+                        double reward = bet * symbols.multiplier(symbol);
+                        for (String name : names) {
+                            reward *= plan.combinationMultiplier(plan.combinationIndex(name));
+                        }
+                        plain += reward;
+                    }
+                }
+                plainSumDiffers += plain != expected ? 1 : 0;
+            }
+        }
+        assertTrue(plainSumDiffers > 0, "No reward depends on the order or precision of the sum");
+    }
+
+    /**
+     * The stream-based reward the plan replaced, before bonus symbols, summing over the map with
+     * {@code DoubleStream.sum()}.
+     */
+    private static double baseReward(GameConfig config, Map<String, List<String>> combinations, double bet) {
+        return combinations.entrySet().stream()
+                .mapToDouble(entry -> {
+                    Symbol symbolConfig = config.getSymbols().get(entry.getKey());
+                    if (symbolConfig == null || !"standard".equals(symbolConfig.getType())) {
+                        return 0.0;
+                    }
+                    return entry.getValue().stream()
+                            .map(config.getWinCombinations()::get)
+                            .filter(Objects::nonNull)
+                            .mapToDouble(WinCombination::getRewardMultiplier)
+                            .reduce(bet * symbolConfig.getRewardMultiplier(), (acc, multiplier) -> acc * multiplier);
+                })
+                .sum();
+    }
+
+    private static void assertMapsMatch(GameConfig config, long seed) {
+        SymbolTable symbols = SymbolTable.compile(config);
+        WinCombinationPlan plan = new WinCombinationPlan(config, symbols);
+        int columns = config.getColumns();
+        int winning = 0;
+        for (byte[] board : TestConfigs.randomBoards(config.getRows() * columns, symbols.size() - 1, BOARDS, seed)) {
+            String[][] matrix = new String[config.getRows()][columns];
+            for (int cell = 0; cell < board.length; cell++) {
+                matrix[cell / columns][cell % columns] = symbols.name(board[cell]);
+            }
+            Map<String, List<String>> expected = checkWinningCombinations(config, matrix);
+            Map<String, List<String>> actual = plan.toMap(plan.evaluate(board));
+            assertEquals(expected, actual);
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()), "Iteration order");
+            winning += expected.isEmpty() ? 0 : 1;
+        }
+        assertTrue(winning > BOARDS / 10, "Too few winning boards to compare: " + winning);
+    }
+
+    /**
+     * The stream-based check the plan replaced, grouping the hits with {@code Collectors.groupingBy}.
+     */
+    private static Map<String, List<String>> checkWinningCombinations(GameConfig config, String[][] matrix) {
+        return config.getWinCombinations().entrySet().stream()
+                .flatMap(entry -> switch (entry.getValue().getWhen()) {
+                    case "same_symbols" -> sameSymbols(config, matrix, entry.getKey(), entry.getValue());
+                    case "linear_symbols" -> linearSymbols(config, matrix, entry.getKey(), entry.getValue());
+                    default -> Stream.empty();
+                })
+                .collect(Collectors.groupingBy(SymbolCombination::symbol,
+                        Collectors.mapping(SymbolCombination::combinationName, Collectors.toList())));
+    }
+
+    private static Stream<SymbolCombination> sameSymbols(GameConfig config, String[][] matrix, String name,
+                                                         WinCombination combination) {
+        return Arrays.stream(matrix)
+                .flatMap(Arrays::stream)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .entrySet().stream()
+                .filter(entry -> entry.getValue() >= combination.getCount())
+                .map(Map.Entry::getKey)
+                .filter(symbol -> isStandard(config, symbol))
+                .map(symbol -> new SymbolCombination(symbol, name));
+    }
+
+    private static Stream<SymbolCombination> linearSymbols(GameConfig config, String[][] matrix, String name,
+                                                           WinCombination combination) {
+        return Arrays.stream(combination.getCoveredAreas())
+                .flatMap(area -> {
+                    Set<String> symbols = Arrays.stream(area)
+                            .map(coord -> coord.split(":"))
+                            .map(parts -> matrix[Integer.parseInt(parts[0])][Integer.parseInt(parts[1])])
+                            .collect(Collectors.toSet());
+                    return symbols.size() == 1
+                            ? symbols.stream().filter(symbol -> isStandard(config, symbol))
+                                    .map(symbol -> new SymbolCombination(symbol, name))
+                            : Stream.empty();
+                });
+    }
+
+    private static boolean isStandard(GameConfig config, String symbol) {
+        Symbol symbolConfig = config.getSymbols().get(symbol);
+        return symbolConfig != null && "standard".equals(symbolConfig.getType());
+    }
+}
@@ -0,0 +1,96 @@
+package com.game.utils;
+
+import com.game.TestConfigs;
+import com.game.models.GameConfig;
+import com.game.models.GameResult;
+import com.game.services.GameEngine;
+import com.game.services.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameResultJsonWriterTest {
+    private static final int SPINS = 20_000;
+
+    @Test
+    void matchesTheMapperOnTheShippedConfig() throws IOException {
+        assertMatchesMapper(TestConfigs.shipped(), 1L);
+    }
+
+    @Test
+    void matchesTheMapperWhenSymbolNamesCollide() throws IOException {
+        assertMatchesMapper(TestConfigs.collidingNames(), 2L);
+    }
+
+    @Test
+    void matchesTheMapperOnSuppliedBoards() throws IOException {
+        GameConfig config = TestConfigs.collidingNames();
+        GameEngine engine = new GameEngine(config, "test", RandomSource.threadLocal(), false);
+        int symbolCount = config.getSymbols().size();
+        for (byte[] board : TestConfigs.randomBoards(25, symbolCount, SPINS, 3L)) {
+            GameResult written = engine.score(board.clone(), 100, null);
+            GameResult mapped = engine.score(board.clone(), 100, null);
+            assertWritten(mapped, written);
+        }
+    }
+
+    @Test
+    void writesAWinningSpinWithoutAllocating() throws IOException {
+        GameEngine engine = new GameEngine(TestConfigs.shipped(), "b3a4f545a2ff9359", RandomSource.threadLocal(), false);
+        GameResult result = null;
+        for (long seed = 0; result == null; seed++) {
+            GameResult played = engine.play(100, seed);
+            if (played.getReward() > 0 && played.getAppliedBonusSymbol() != null) {
+                result = played;
+            }
+        }
+
+        // Warm the writer up, then count what the thread allocates while it writes the same result again
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GameResultJsonWriter writer = new GameResultJsonWriter();
+        for (int i = 0; i < 50_000; i++) {
+            writer.reset();
+            writer.append(result);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            writer.reset();
+            writer.append(result);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 10_000, "Allocated " + allocated + " bytes writing 10000 results");
+
+        GameResult mapped = engine.play(100, result.getSeed());
+        assertEquals(new String(JsonUtils.toJsonBytesWithMapper(mapped), StandardCharsets.UTF_8), writer.toString());
+    }
+
+    /**
+     * This method plays every spin twice from the same seed, writing one result with the writer and the
+     * other with the object mapper, so that neither shares the map form the other built.
+     */
+    private static void assertMatchesMapper(GameConfig config, long seed) throws IOException {
+        GameEngine engine = new GameEngine(config, "test", RandomSource.threadLocal(), false);
+        Random seeds = new Random(seed);
+        int winning = 0;
+        for (int spin = 0; spin < SPINS; spin++) {
+            long spinSeed = seeds.nextLong();
+            GameResult written = engine.play(100, spinSeed);
+            GameResult mapped = engine.play(100, spinSeed);
+            assertWritten(mapped, written);
+            winning += written.getReward() > 0 ? 1 : 0;
+        }
+        assertTrue(winning > 0, "No winning spin to compare");
+    }
+
+    private static void assertWritten(GameResult mapped, GameResult written) throws IOException {
+        GameResultJsonWriter writer = new GameResultJsonWriter();
+        assertTrue(writer.append(written), "The writer refused a result played by the engine");
+        assertEquals(new String(JsonUtils.toJsonBytesWithMapper(mapped), StandardCharsets.UTF_8), writer.toString());
+    }
+}
@@ -0,0 +1,37 @@
+package com.game.utils;
+
+import com.game.TestConfigs;
+import com.game.models.GameConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class JsonUtilsTest {
+    @Test
+    void versionOfTheShippedConfigIsPinned() throws IOException {
+        // Seeds, journals and payout table caches are all matched by version; changing it orphans them
+        assertEquals("b3a4f545a2ff9359", JsonUtils.configVersion(TestConfigs.shipped()));
+    }
+
+    @Test
+    void hashIgnoresFormattingButNotValues() throws IOException {
+        String json = Files.readString(Path.of("config.json"));
+        Path reformatted = Files.createTempFile("config", ".json");
+        Path changed = Files.createTempFile("config", ".json");
+        try {
+            Files.writeString(reformatted, json.replaceAll("\\s+", ""));
+            Files.writeString(changed, json.replace("\"reward_multiplier\": 5,", "\"reward_multiplier\": 6,"));
+            GameConfig config = TestConfigs.shipped();
+            assertEquals(JsonUtils.configHash(config), JsonUtils.configHash(JsonUtils.loadConfig(reformatted.toString())));
+            assertNotEquals(JsonUtils.configHash(config), JsonUtils.configHash(JsonUtils.loadConfig(changed.toString())));
+        } finally {
+            Files.delete(reformatted);
+            Files.delete(changed);
+        }
+    }
+}
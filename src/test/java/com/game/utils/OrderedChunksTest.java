@@ -0,0 +1,61 @@
+package com.game.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderedChunksTest {
+    private static final int THREADS = 3;
+
+    @Test
+    void writesChunksInSubmissionOrderWithFewInFlight() throws Exception {
+        AtomicInteger unwritten = new AtomicInteger();
+        AtomicInteger mostUnwritten = new AtomicInteger();
+        List<Integer> written = new ArrayList<>();
+        try (OrderedChunks<Integer, Integer> chunks = new OrderedChunks<>(Executors.newFixedThreadPool(THREADS),
+                THREADS, 0, (chunk, summary) -> {
+                    written.add(chunk);
+                    unwritten.decrementAndGet();
+                    return summary + chunk;
+                })) {
+            for (int i = 0; i < 200; i++) {
+                int chunk = i;
+                mostUnwritten.accumulateAndGet(unwritten.incrementAndGet(), Math::max);
+                chunks.submit(() -> {
+                    TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextInt(500));
+                    return chunk;
+                });
+            }
+            assertEquals(199 * 200 / 2, chunks.finish());
+        }
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i, written.get(i));
+        }
+        assertEquals(200, written.size());
+        assertTrue(mostUnwritten.get() <= 2 * THREADS + 1, "In flight: " + mostUnwritten.get());
+    }
+
+    @Test
+    void failsWithTheIOExceptionOfAChunk() throws Exception {
+        try (OrderedChunks<Integer, Integer> chunks = new OrderedChunks<>(Executors.newFixedThreadPool(THREADS),
+                THREADS, 0, (chunk, summary) -> summary + chunk)) {
+            chunks.submit(() -> 1);
+            chunks.submit(() -> {
+                throw new UncheckedIOException(new IOException("disk full"));
+            });
+            IOException e = assertThrows(IOException.class, chunks::finish);
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+}